@@ -1,11 +1,14 @@
 package gui;
 
-import model.Box;
-import model.BoxListener;
-import model.Placement;
 import model.Puzzle;
-import solvers.DLX;
+import solvers.ArrayDLX;
+import solvers.ParallelDLX;
+import solvers.SolutionWriter;
+import solvers.Solver;
 import solvers.SolverListener;
+import solvers.SymmetryBreaking;
+import solvers.TreeSizeEstimate;
+import solvers.TreeSizeEstimator;
 import textio.PuzzleReader;
 import view.PuzzleView;
 
@@ -15,6 +18,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -22,6 +27,14 @@ import java.util.ResourceBundle;
  * @author Robert Leenders
  */
 public class MainFrame extends JFrame {
+    /**
+     * Number of probes of the search size estimate which is shown in the title, and logged, before a search
+     */
+    private static final int ESTIMATE_PROBES = 2000;
+    /**
+     * Maximum number of times per second the placements of a search are shown
+     */
+    private static final int FRAME_RATE = 30;
     /*
      * List of GUI items needed to draw the frame
      */
@@ -29,7 +42,11 @@ public class MainFrame extends JFrame {
     private JTextArea textAreaLog;
     private JCheckBoxMenuItem showPlacementCheckBoxMenuItem;
     private JCheckBoxMenuItem logCheckBoxMenuItem;
+    private JCheckBoxMenuItem writeSolutionsCheckBoxMenuItem;
     private JCheckBoxMenuItem stopAfterFirstSolutionCheckBoxMenuItem;
+    private JCheckBoxMenuItem parallelCheckBoxMenuItem;
+    private JCheckBoxMenuItem canonicalCheckBoxMenuItem;
+    private JCheckBoxMenuItem completeCheckBoxMenuItem;
     private JScrollPane scrollTextAreaLog;
     private JMenu solveMenu;
     private JMenuItem loadPuzzleMenuItem;
@@ -63,8 +80,12 @@ public class MainFrame extends JFrame {
         solveMenu = new JMenu();
         JMenuItem automaticallySolveMenuItem = new JMenuItem();
         stopAfterFirstSolutionCheckBoxMenuItem = new JCheckBoxMenuItem();
+        parallelCheckBoxMenuItem = new JCheckBoxMenuItem();
+        canonicalCheckBoxMenuItem = new JCheckBoxMenuItem();
+        completeCheckBoxMenuItem = new JCheckBoxMenuItem();
         showPlacementCheckBoxMenuItem = new JCheckBoxMenuItem();
         logCheckBoxMenuItem = new JCheckBoxMenuItem();
+        writeSolutionsCheckBoxMenuItem = new JCheckBoxMenuItem();
 
         editMenu = new JMenu();
         editMenu.setEnabled(false);
@@ -141,11 +162,23 @@ public class MainFrame extends JFrame {
                 stopAfterFirstSolutionCheckBoxMenuItem.setText(bundle.getString("MainFrame.stopAfterFirstSolutionCheckBoxMenuItem.text"));
                 solveMenu.add(stopAfterFirstSolutionCheckBoxMenuItem);
 
+                parallelCheckBoxMenuItem.setText(bundle.getString("MainFrame.parallelCheckBoxMenuItem.text"));
+                solveMenu.add(parallelCheckBoxMenuItem);
+
+                canonicalCheckBoxMenuItem.setText(bundle.getString("MainFrame.canonicalCheckBoxMenuItem.text"));
+                solveMenu.add(canonicalCheckBoxMenuItem);
+
+                completeCheckBoxMenuItem.setText(bundle.getString("MainFrame.completeCheckBoxMenuItem.text"));
+                solveMenu.add(completeCheckBoxMenuItem);
+
                 showPlacementCheckBoxMenuItem.setText(bundle.getString("MainFrame.showPlacementCheckBoxMenuItem.text"));
                 solveMenu.add(showPlacementCheckBoxMenuItem);
 
                 logCheckBoxMenuItem.setText(bundle.getString("MainFrame.logCheckBoxMenuItem.text"));
                 solveMenu.add(logCheckBoxMenuItem);
+
+                writeSolutionsCheckBoxMenuItem.setText(bundle.getString("MainFrame.writeSolutionsCheckBoxMenuItem.text"));
+                solveMenu.add(writeSolutionsCheckBoxMenuItem);
             }
             solveMenu.setEnabled(false);
             mainMenuBar.add(solveMenu);
@@ -221,16 +254,68 @@ public class MainFrame extends JFrame {
      * Spawns a thread(solver) which solves the puzzle.
      */
     private void automaticallySolveMenuItemClicked() {
+        final Puzzle oldPuzzle = puzzleView.getPuzzle();
+        final Puzzle solverPuzzle = oldPuzzle.copy(completeCheckBoxMenuItem.getState());
+        final SolutionWriter solutionWriter;
+        if (writeSolutionsCheckBoxMenuItem.getState()) {
+            solutionWriter = openSolutionWriter(solverPuzzle);
+            if (solutionWriter == null)
+                return;
+        } else {
+            solutionWriter = null;
+        }
+
         loadPuzzleMenuItem.setEnabled(false);
         solveMenu.setEnabled(false);
         puzzleView.setEnabled(false);
         editMenu.setEnabled(false);
 
-        final Puzzle oldPuzzle = puzzleView.getPuzzle();
-        final DLX dlx = new DLX(new Puzzle(oldPuzzle.getName(), new Box(oldPuzzle.getBox().getRowCount(), oldPuzzle.getBox().getColumnCount(), oldPuzzle.getBox().getBlockedPositions()), oldPuzzle.getBagOfPieces()));
+        final Solver dlx;
+        final int rowCount, duplicateRowCount;
+        final SymmetryBreaking symmetryBreaking = canonicalCheckBoxMenuItem.getState() ? SymmetryBreaking.CANONICAL : SymmetryBreaking.NONE;
+        if (parallelCheckBoxMenuItem.getState()) {
+            ParallelDLX parallelDLX = new ParallelDLX(solverPuzzle);
+            parallelDLX.setSymmetryBreaking(symmetryBreaking);
+            dlx = parallelDLX;
+            rowCount = parallelDLX.getRowCount();
+            duplicateRowCount = parallelDLX.getDuplicateRowCount();
+        } else {
+            ArrayDLX arrayDLX = new ArrayDLX(solverPuzzle);
+            arrayDLX.setTracePlacements(showPlacementCheckBoxMenuItem.getState());
+            arrayDLX.setSymmetryBreaking(symmetryBreaking);
+            dlx = arrayDLX;
+            rowCount = arrayDLX.getRowCount();
+            duplicateRowCount = arrayDLX.getDuplicateRowCount();
+        }
+        puzzleView.setPaintPlacements(showPlacementCheckBoxMenuItem.getState());
+        final Puzzle newPuzzle = oldPuzzle.copy(completeCheckBoxMenuItem.getState());
+        puzzleView.setPuzzle(newPuzzle);
+        final PlacementMirror mirror = new PlacementMirror(dlx.getPuzzle(), newPuzzle, FRAME_RATE);
+
         final Thread thread = new Thread(new Runnable() {
             public void run() {
+                ResourceBundle bundle = ResourceBundle.getBundle("gui.properties_en");
+                // The estimate is of the same search as the solver, so of the restricted matrix when it is canonical
+                TreeSizeEstimator estimator = new TreeSizeEstimator(solverPuzzle);
+                estimator.setSymmetryBreaking(symmetryBreaking);
+                TreeSizeEstimate estimate = estimator.estimate(ESTIMATE_PROBES);
+                setTitle(MessageFormat.format(bundle.getString("MainFrame.estimate.title"),
+                        bundle.getString("MainFrame.this.title"), String.format("%.3g", estimate.getSeconds()),
+                        String.format("%.3g", estimate.getSecondsLow()), String.format("%.3g", estimate.getSecondsHigh())));
+                if (logCheckBoxMenuItem.getState()) {
+                    textAreaLog.append(MessageFormat.format(bundle.getString("MainFrame.estimate.text"), estimate) + "\n");
+                    textAreaLog.append(MessageFormat.format(bundle.getString("MainFrame.rows.text"), rowCount, duplicateRowCount) + "\n\n");
+                }
                 dlx.findAll();
+                setTitle(bundle.getString("MainFrame.this.title"));
+                mirror.finish();
+                if (solutionWriter != null) {
+                    try {
+                        solutionWriter.close();
+                    } catch (IOException e) {
+                        showSolutionsNotWritten(e);
+                    }
+                }
                 loadPuzzleMenuItem.setEnabled(true);
                 solveMenu.setEnabled(true);
                 puzzleView.setEnabled(true);
@@ -239,29 +324,8 @@ public class MainFrame extends JFrame {
             }
         });
 
-        puzzleView.setPaintPlacements(showPlacementCheckBoxMenuItem.getState());
-        final Puzzle newPuzzle = new Puzzle(oldPuzzle.getName(), new Box(oldPuzzle.getBox().getRowCount(), oldPuzzle.getBox().getColumnCount(), oldPuzzle.getBox().getBlockedPositions()), oldPuzzle.getBagOfPieces());
-        puzzleView.setPuzzle(newPuzzle);
-        dlx.getPuzzle().addBoxListener(new BoxListener() {
-            public void placementRemoved(final Placement placement) {
-                SwingUtilities.invokeLater(
-                                          new Runnable() {
-                                              public void run() {
-                                                  newPuzzle.removePlacement(placement);
-                                              }
-                                          });
-            }
-
-            public void placementAdded(final Placement placement) {
-                SwingUtilities.invokeLater(
-                                          new Runnable() {
-                                              public void run() {
-                                                  newPuzzle.addPlacement(placement);
-                                              }
-                                          });
-            }
-        });
-
+        if (solutionWriter != null)
+            dlx.addListener(solutionWriter);
 
         if (logCheckBoxMenuItem.getState()) {
             textAreaLog.setText("");
@@ -284,9 +348,42 @@ public class MainFrame extends JFrame {
             });
         }
 
+        mirror.start();
         thread.start();
     }
 
+    /**
+     * Asks for the file to write the solutions of a search to and opens it.
+     *
+     * @param solverPuzzle the puzzle of the solver
+     * @return the writer, {@code null} if no file is chosen or it can't be written
+     */
+    private SolutionWriter openSolutionWriter(Puzzle solverPuzzle) {
+        final JFileChooser fc = new JFileChooser();
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return null;
+        try {
+            return new SolutionWriter(fc.getSelectedFile(), solverPuzzle);
+        } catch (IOException e) {
+            showSolutionsNotWritten(e);
+            return null;
+        }
+    }
+
+    /**
+     * Tells the user the solutions file can't be written, on the event dispatch thread.
+     *
+     * @param e the cause
+     */
+    private void showSolutionsNotWritten(final IOException e) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                ResourceBundle bundle = ResourceBundle.getBundle("gui.properties_en");
+                JOptionPane.showMessageDialog(null, MessageFormat.format(bundle.getString("MainFrame.solutionsNotWritten.text"), e.getMessage()), bundle.getString("MainFrame.solutionsNotWritten.header"), JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
     /**
      * Main function of this program.
      *
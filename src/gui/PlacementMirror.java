@@ -0,0 +1,135 @@
+package gui;
+
+import model.BoxListener;
+import model.Placement;
+import model.Puzzle;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shows the placements of a solver in the puzzle of the view, at most a given number of frames per second.
+ *
+ * A traced search reports millions of placements, far more than can be shown. The solver thread keeps the placements
+ * of its puzzle in a list of its own. A Swing timer marks a frame as due at the frame rate; at its next placement the
+ * solver publishes a copy of the list in a single slot, replacing a copy which wasn't shown yet. At the next tick the
+ * event dispatch thread takes the copy and changes the puzzle of the view to match it. Placements in between are never
+ * shown, so the event queue holds no more than the timer ticks and the solver never waits for the view.
+ *
+ * @author Robert Leenders
+ * @see MainFrame
+ */
+class PlacementMirror implements BoxListener {
+    /**
+     * The puzzle of the view, only used on the event dispatch thread
+     */
+    private final Puzzle view;
+    /**
+     * The placements in the puzzle of the solver, only used on the solver thread
+     */
+    private final List<Placement> placements;
+    /**
+     * The latest published placements which aren't shown yet, {@code null} if there are none
+     */
+    private final AtomicReference<Placement[]> latest = new AtomicReference<Placement[]>();
+    /**
+     * Whether the solver should publish its placements at the next change
+     */
+    private volatile boolean frameDue = true;
+    /**
+     * Timer which shows the latest placements at the frame rate
+     */
+    private final Timer timer;
+
+
+    /**
+     * Constructs a mirror of the placements in the puzzle of a solver. It is started by {@link #start()}.
+     *
+     * @param solverPuzzle the puzzle of the solver
+     * @param view         the puzzle of the view, with the same placements as the puzzle of the solver
+     * @param frameRate    the maximum number of frames per second
+     * @throws IllegalArgumentException if frameRate is below 1
+     */
+    PlacementMirror(Puzzle solverPuzzle, Puzzle view, int frameRate) {
+        if (frameRate < 1)
+            throw new IllegalArgumentException("frameRate is below 1; frameRate:" + frameRate);
+        this.view = view;
+        placements = new ArrayList<Placement>(solverPuzzle.getBox().getPlacements());
+        timer = new Timer(1000 / frameRate, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                showLatest();
+            }
+        });
+        solverPuzzle.addBoxListener(this);
+    }
+
+    /**
+     * Starts showing frames.
+     */
+    void start() {
+        timer.start();
+    }
+
+    /**
+     * Publishes the final placements of the solver and stops showing frames once they are shown. Called by the solver
+     * thread after the search.
+     */
+    void finish() {
+        latest.set(snapshot());
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                timer.stop();
+                showLatest();
+            }
+        });
+    }
+
+    public void placementAdded(Placement placement) {
+        placements.add(placement);
+        publishIfDue();
+    }
+
+    public void placementRemoved(Placement placement) {
+        placements.remove(placements.lastIndexOf(placement));
+        publishIfDue();
+    }
+
+    private void publishIfDue() {
+        if (frameDue) {
+            frameDue = false;
+            latest.set(snapshot());
+        }
+    }
+
+    private Placement[] snapshot() {
+        return placements.toArray(new Placement[placements.size()]);
+    }
+
+    /**
+     * Changes the puzzle of the view to the latest published placements, if any, and marks the next frame as due.
+     * Called on the event dispatch thread.
+     */
+    void showLatest() {
+        Placement[] shown = latest.getAndSet(null);
+        frameDue = true;
+        if (shown == null)
+            return;
+
+        Set<Placement> target = new HashSet<Placement>(Arrays.asList(shown));
+        List<Placement> current = view.getBox().getPlacements();
+        for (Placement placement : current)
+            if (!target.contains(placement))
+                view.removePlacement(placement);
+        Set<Placement> kept = new HashSet<Placement>(current);
+        for (Placement placement : shown)
+            if (!kept.contains(placement))
+                view.addPlacement(placement);
+    }
+}
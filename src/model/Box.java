@@ -1,17 +1,38 @@
 package model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * The box is the actual puzzle, it contains cells which represent the puzzle.
  *
+ * The cells are stored row by row in flat arrays: the state of every cell as a byte, the id of the placement on every
+ * cell as an int and the blocked cells as a bitset. A placement gets an id when it is added, which is reused after it
+ * is removed. The {@link Cell}s returned by {@link #get(int, int)} and {@link #iterator()} are made on request and
+ * don't change with the box.
+ *
  * @author Robert Leenders
  * @see Cell
  * @see Placement
  */
 public class Box implements Iterable<List<Cell>> {
+    /**
+     * The cell states by ordinal
+     */
+    private static final CellState[] CELL_STATES = CellState.values();
+    /**
+     * The ordinal of {@link CellState#FREE}
+     */
+    private static final byte FREE = (byte) CellState.FREE.ordinal();
+    /**
+     * The ordinal of {@link CellState#OCCUPIED}
+     */
+    private static final byte OCCUPIED = (byte) CellState.OCCUPIED.ordinal();
     /** The number of rows and the number of columns form the dimension of the box */
     /**
      * The number of rows
@@ -22,13 +43,45 @@ public class Box implements Iterable<List<Cell>> {
      */
     private int columnCount;
     /**
-     * The cells which represent the puzzle with the dimensions of rowCount and columnCount
+     * The ordinal of the {@link CellState} of every cell, row by row
+     */
+    private byte[] states;
+    /**
+     * The id of the placement on every cell, 0 if the cell isn't occupied
      */
-    private List<List<Cell>> cells;
+    private int[] placementIds;
+    /**
+     * The blocked cells
+     */
+    private BitSet blocked;
+    /**
+     * The placement of every id, {@code null} if the id isn't used; id 0 is never used
+     */
+    private Placement[] placementOfId;
+    /**
+     * The ids of removed placements which can be reused, as a stack
+     */
+    private int[] freeIds;
+    /**
+     * Number of ids on the stack of {@code freeIds}
+     */
+    private int freeIdCount;
+    /**
+     * The lowest id which has never been used
+     */
+    private int nextId;
     /**
      * A list with positions where the blocked cells are.
      */
     private ArrayList<Position> blockedPositions;
+    /**
+     * The number of free cells, kept up to date by adding and removing placements
+     */
+    private int freeCellCount;
+    /**
+     * A 64-bit fingerprint of which piece occupies which cell, kept up to date by adding and removing placements
+     */
+    private long fingerprint;
 
 
     /**
@@ -65,16 +118,25 @@ public class Box implements Iterable<List<Cell>> {
         this.columnCount = columnCount;
         this.blockedPositions = blockedPositions;
 
-        cells = new ArrayList<List<Cell>>();
-        //Cell[rowCount][columnCount];
-        for (int i = 0; i < rowCount; ++i) {
-            List<Cell> column = new ArrayList<Cell>();
-            for (int j = 0; j < columnCount; ++j) {
-                boolean cellBlocked = blockedPositions.contains(new Position(i, j));
-                column.add(new Cell(cellBlocked));
+        int cellCount = rowCount * columnCount;
+        states = new byte[cellCount];
+        placementIds = new int[cellCount];
+        blocked = new BitSet(cellCount);
+        for (Position position : blockedPositions) {
+            int row = position.getRow();
+            int column = position.getColumn();
+            if (row >= 0 && row < rowCount && column >= 0 && column < columnCount) {
+                blocked.set(row * columnCount + column);
+                states[row * columnCount + column] = (byte) CellState.BLOCKED.ordinal();
             }
-            cells.add(column);
         }
+        freeCellCount = cellCount - blocked.cardinality();
+        fingerprint = 0;
+
+        placementOfId = new Placement[16];
+        freeIds = new int[16];
+        freeIdCount = 0;
+        nextId = 1;
     }
 
     /**
@@ -118,7 +180,10 @@ public class Box implements Iterable<List<Cell>> {
 
         if (columnCount != box.columnCount) return false;
         if (rowCount != box.rowCount) return false;
-        if (cells != null ? !cells.equals(box.cells) : box.cells != null) return false;
+        if (!Arrays.equals(states, box.states)) return false;
+        for (int cell = 0; cell < states.length; ++cell)
+            if (placementIds[cell] != 0 && !placementOfId[placementIds[cell]].equals(box.placementOfId[box.placementIds[cell]]))
+                return false;
 
         return true;
     }
@@ -132,12 +197,14 @@ public class Box implements Iterable<List<Cell>> {
     public int hashCode() {
         int result = rowCount;
         result = 31 * result + columnCount;
-        result = 31 * result + (cells != null ? cells.hashCode() : 0);
+        for (int cell = 0; cell < states.length; ++cell)
+            result = 31 * result + (placementIds[cell] != 0 ? placementOfId[placementIds[cell]].hashCode() : states[cell]);
         return result;
     }
 
     /**
-     * String representation of the cells in the box.
+     * String representation of the cells in the box. A free cell is shown as '.', a blocked cell as '#' and an occupied
+     * cell by the name of its piece.
      *
      * @return string representation
      */
@@ -146,7 +213,13 @@ public class Box implements Iterable<List<Cell>> {
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < rowCount; ++i) {
             for (int j = 0; j < columnCount; ++j) {
-                builder.append(cells.get(i).get(j).getState() == CellState.FREE ? "." : cells.get(i).get(j).getPlacement().getPiece().getName());
+                final int cell = i * columnCount + j;
+                if (placementIds[cell] != 0)
+                    builder.append(placementOfId[placementIds[cell]].getPiece().getName());
+                else if (blocked.get(cell))
+                    builder.append('#');
+                else
+                    builder.append('.');
             }
             if (i + 1 < rowCount)
                 builder.append(System.getProperty("line.separator"));
@@ -178,17 +251,57 @@ public class Box implements Iterable<List<Cell>> {
         throwIfPositionNotInBox(row, column);
         throwIfPositionNotInBox(maxRow, maxColumn);
 
-        for (int i = row; i <= maxRow; ++i) {
-            for (int j = column; j <= maxColumn; ++j) {
-                if (placement.getOrientation().isPositionOccupied(i - row, j - column)) {
-                    if (!cells.get(i).get(j).isPlacementPossible())
-                        throw new IllegalArgumentException("placement on row: " + i + " and column:" + j + " is not possible; position is not free");
-                    cells.get(i).get(j).setPlacement(placement);
-                }
-            }
+        int[] rowOffsets = placement.getOrientation().getRowOffsets();
+        int[] columnOffsets = placement.getOrientation().getColumnOffsets();
+        for (int k = 0; k < rowOffsets.length; ++k) {
+            int i = row + rowOffsets[k];
+            int j = column + columnOffsets[k];
+            if (states[i * columnCount + j] != FREE)
+                throw new IllegalArgumentException("placement on row: " + i + " and column:" + j + " is not possible; position is not free");
+        }
+
+        int id = newId(placement);
+        for (int k = 0; k < rowOffsets.length; ++k) {
+            int i = row + rowOffsets[k];
+            int j = column + columnOffsets[k];
+            states[i * columnCount + j] = OCCUPIED;
+            placementIds[i * columnCount + j] = id;
+            --freeCellCount;
+            fingerprint ^= cellKey(i, j, placement.getPiece());
         }
     }
 
+    /**
+     * Gives a placement an id, reusing the id of a removed placement if there is one.
+     *
+     * @param placement the placement
+     * @return the id
+     */
+    private int newId(Placement placement) {
+        int id;
+        if (freeIdCount > 0) {
+            id = freeIds[--freeIdCount];
+        } else {
+            id = nextId++;
+            if (id == placementOfId.length)
+                placementOfId = Arrays.copyOf(placementOfId, 2 * id);
+        }
+        placementOfId[id] = placement;
+        return id;
+    }
+
+    /**
+     * Makes the id of a removed placement available again.
+     *
+     * @param id the id
+     */
+    private void freeId(int id) {
+        placementOfId[id] = null;
+        if (freeIdCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, 2 * freeIdCount);
+        freeIds[freeIdCount++] = id;
+    }
+
     /**
      * Helpers method which checks whether the position is valid (in the box.)
      *
@@ -213,7 +326,33 @@ public class Box implements Iterable<List<Cell>> {
      */
     public Cell get(int row, int column) throws IllegalArgumentException {
         throwIfPositionNotInBox(row, column);
-        return cells.get(row).get(column);
+        return cell(row * columnCount + column);
+    }
+
+    /**
+     * Returns the state of the cell on position (row, column), without making a {@link Cell}.
+     *
+     * @param row    the row
+     * @param column the column
+     * @return the state of the cell
+     * @throws IllegalArgumentException when the position is invalid
+     */
+    public CellState getState(int row, int column) throws IllegalArgumentException {
+        throwIfPositionNotInBox(row, column);
+        return CELL_STATES[states[row * columnCount + column]];
+    }
+
+    /**
+     * Makes a cell with the state and the placement of a cell of the box.
+     *
+     * @param cell the index of the cell, row by row
+     * @return the cell
+     */
+    private Cell cell(int cell) {
+        Cell result = new Cell(blocked.get(cell));
+        if (placementIds[cell] != 0)
+            result.setPlacement(placementOfId[placementIds[cell]]);
+        return result;
     }
 
     /**
@@ -225,6 +364,61 @@ public class Box implements Iterable<List<Cell>> {
         return blockedPositions;
     }
 
+    /**
+     * Returns the placements in the box, in the order of their first cell (row by row).
+     *
+     * @return list with the placements
+     */
+    public List<Placement> getPlacements() {
+        List<Placement> result = new ArrayList<Placement>();
+        boolean[] added = new boolean[nextId];
+        for (int id : placementIds) {
+            if (id != 0 && !added[id]) {
+                added[id] = true;
+                result.add(placementOfId[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of free cells, cells which are neither blocked nor occupied.
+     *
+     * @return number of free cells
+     */
+    public int getFreeCellCount() {
+        return freeCellCount;
+    }
+
+    /**
+     * Returns a 64-bit fingerprint of the contents of this box. Two boxes with the same pieces on the same cells have
+     * the same fingerprint; two different boxes have the same fingerprint only by (very unlikely) coincidence.
+     *
+     * The fingerprint is the xor of a key for every occupied cell, so it is updated in constant time per cell.
+     *
+     * @return fingerprint of the contents
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Calculates the fingerprint key of a piece on a cell. It depends on the name of the piece only, like
+     * {@link #toString()}.
+     *
+     * @param row    the row
+     * @param column the column
+     * @param piece  the piece on the cell
+     * @return the key
+     */
+    private long cellKey(int row, int column, Piece piece) {
+        long z = ((long) (row * columnCount + column) << 32) ^ (piece.getName() != null ? piece.getName().hashCode() : 0);
+        // splitmix64 finalizer, spreads the bits over the whole long
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
     /**
      * Returns the amount of columns for this box
      *
@@ -257,23 +451,48 @@ public class Box implements Iterable<List<Cell>> {
         if (maxRow >= rowCount || maxColumn >= columnCount)
             return false;
 
-        for (int i = row; i <= maxRow; ++i) {
-            for (int j = column; j <= maxColumn; ++j) {
-                if (placement.getOrientation().isPositionOccupied(i - row, j - column) && !cells.get(i).get(j).isPlacementPossible()) {
-                    return false;
-                }
-            }
-        }
+        int[] rowOffsets = placement.getOrientation().getRowOffsets();
+        int[] columnOffsets = placement.getOrientation().getColumnOffsets();
+        for (int k = 0; k < rowOffsets.length; ++k)
+            if (states[(row + rowOffsets[k]) * columnCount + column + columnOffsets[k]] != FREE)
+                return false;
         return true;
     }
 
     /**
-     * Returns an iterator over a set of elements of type {@code List<Cell>}.
+     * Returns an iterator over a set of elements of type {@code List<Cell>}, one list for every row.
      *
      * @return an Iterator.
      */
     public Iterator<List<Cell>> iterator() {
-        return cells.iterator();
+        return new Iterator<List<Cell>>() {
+            private int row = 0;
+
+            public boolean hasNext() {
+                return row < rowCount;
+            }
+
+            public List<Cell> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final int start = row++ * columnCount;
+                return new AbstractList<Cell>() {
+                    public Cell get(int column) {
+                        if (column < 0 || column >= columnCount)
+                            throw new IndexOutOfBoundsException("column: " + column + "; columnCount: " + columnCount);
+                        return cell(start + column);
+                    }
+
+                    public int size() {
+                        return columnCount;
+                    }
+                };
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     /**
@@ -294,21 +513,24 @@ public class Box implements Iterable<List<Cell>> {
         int column = p.getColumn();
         throwIfPositionNotInBox(row, column);
 
-        Placement placement = cells.get(row).get(column).getPlacement();
-        if (placement == null)
-            throw new IllegalArgumentException("There is no placement on cell: " + cells.get(row).get(column));
+        int id = placementIds[row * columnCount + column];
+        if (id == 0)
+            throw new IllegalArgumentException("There is no placement on cell: " + cell(row * columnCount + column));
+        Placement placement = placementOfId[id];
 
         row = placement.getAnchorPosition().getRow();
         column = placement.getAnchorPosition().getColumn();
-        int maxRow = row + placement.getOrientation().getHeight();
-        int maxColumn = column + placement.getOrientation().getWidth();
-        for (int i = row; i < maxRow; ++i) {
-            for (int j = column; j < maxColumn; ++j) {
-                if (placement.getOrientation().isPositionOccupied(i - row, j - column)) {
-                    cells.get(i).get(j).removePlacement();
-                }
-            }
+        int[] rowOffsets = placement.getOrientation().getRowOffsets();
+        int[] columnOffsets = placement.getOrientation().getColumnOffsets();
+        for (int k = 0; k < rowOffsets.length; ++k) {
+            int i = row + rowOffsets[k];
+            int j = column + columnOffsets[k];
+            states[i * columnCount + j] = FREE;
+            placementIds[i * columnCount + j] = 0;
+            ++freeCellCount;
+            fingerprint ^= cellKey(i, j, placement.getPiece());
         }
+        freeId(id);
         return placement;
     }
 
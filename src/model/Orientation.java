@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -7,6 +8,11 @@ import java.util.Set;
 /**
  * Class which represent a piece in a particular way, a so called orientation.
  *
+ * Next to the set of positions an orientation keeps two forms which are kept up to date by {@link #addPosition(int,
+ * int)}, so they take no allocation to use: the row and the column of every position, sorted row by row, and a bitmask
+ * of the occupied columns of every row. A placement goes over the sorted positions only, instead of over every cell of
+ * the bounding box; {@link #isPositionOccupied(int, int)} tests a bit.
+ *
  * @author Robert Leenders
  * @see Piece
  * @see Position
@@ -30,6 +36,22 @@ public class Orientation implements Iterable<Position> {
      * Holds the column of the first occupied cell (positions)
      */
     private int firstOccupiedColumn = Integer.MAX_VALUE;
+    /**
+     * The row of every position, sorted row by row and then by column
+     */
+    private int[] rowOffsets = new int[0];
+    /**
+     * The column of every position, in the order of {@code rowOffsets}
+     */
+    private int[] columnOffsets = new int[0];
+    /**
+     * The occupied columns of every row as a bitmask, {@code wordsPerRow} longs per row
+     */
+    private long[] rowMasks = new long[0];
+    /**
+     * The number of longs in the bitmask of a row
+     */
+    private int wordsPerRow;
 
     /**
      * Creates a new orientation object
@@ -107,9 +129,40 @@ public class Orientation implements Iterable<Position> {
             updateBoundingBox(row, column);
             if (row == 0) // A first cell can only occur in the first row
                 updateFirstOccupiedColumn(column);
+            insertOffset(row, column);
+            updateRowMasks();
         }
     }
 
+    /**
+     * Inserts a new position in the sorted offsets.
+     *
+     * @param row    the row of the new position
+     * @param column the column of the new position
+     */
+    private void insertOffset(int row, int column) {
+        int n = rowOffsets.length;
+        int i = n;
+        while (i > 0 && (rowOffsets[i - 1] > row || (rowOffsets[i - 1] == row && columnOffsets[i - 1] > column)))
+            --i;
+        rowOffsets = Arrays.copyOf(rowOffsets, n + 1);
+        columnOffsets = Arrays.copyOf(columnOffsets, n + 1);
+        System.arraycopy(rowOffsets, i, rowOffsets, i + 1, n - i);
+        System.arraycopy(columnOffsets, i, columnOffsets, i + 1, n - i);
+        rowOffsets[i] = row;
+        columnOffsets[i] = column;
+    }
+
+    /**
+     * Rebuilds the bitmasks of the rows from the offsets, as the bounding box may have grown.
+     */
+    private void updateRowMasks() {
+        wordsPerRow = (width + 63) >>> 6;
+        rowMasks = new long[height * wordsPerRow];
+        for (int i = 0; i < rowOffsets.length; ++i)
+            rowMasks[rowOffsets[i] * wordsPerRow + (columnOffsets[i] >>> 6)] |= 1L << columnOffsets[i];
+    }
+
     /**
      * Makes sure the bounding box has the right size.
      *
@@ -176,6 +229,15 @@ public class Orientation implements Iterable<Position> {
         return positions.isEmpty();
     }
 
+    /**
+     * Returns the number of occupied positions
+     *
+     * @return number of positions
+     */
+    public int size() {
+        return positions.size();
+    }
+
     /**
      * Returns a boolean whether the given position is occupied
      *
@@ -184,7 +246,81 @@ public class Orientation implements Iterable<Position> {
      * @return {@code true} if this orientation containsPoint {@code new Position(row, column)}; false otherwise
      */
     public boolean isPositionOccupied(int row, int column) {
-        return !(row < 0 || column < 0) && positions.contains(new Position(row, column));
+        if (row < 0 || column < 0 || row >= height || column >= width)
+            return false;
+        return (rowMasks[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Returns this shape moved to the top left, so its first row and its first column are occupied. Orientations which
+     * are the same shape at another place are equal in canonical form.
+     *
+     * @return the orientation in canonical form
+     */
+    public Orientation canonical() {
+        int minColumn = Integer.MAX_VALUE;
+        for (int column : columnOffsets)
+            minColumn = Math.min(minColumn, column);
+        Orientation result = new Orientation();
+        for (int i = 0; i < rowOffsets.length; ++i)
+            result.addPosition(rowOffsets[i] - rowOffsets[0], columnOffsets[i] - minColumn);
+        return result;
+    }
+
+    /**
+     * Returns this shape rotated clockwise by 90 degrees, in canonical form.
+     *
+     * @return the rotated orientation
+     */
+    public Orientation rotated() {
+        Orientation result = new Orientation();
+        for (int i = 0; i < rowOffsets.length; ++i)
+            result.addPosition(columnOffsets[i], height - 1 - rowOffsets[i]);
+        return result.canonical();
+    }
+
+    /**
+     * Returns the mirror image of this shape, flipped left to right, in canonical form.
+     *
+     * @return the flipped orientation
+     */
+    public Orientation flipped() {
+        Orientation result = new Orientation();
+        for (int i = 0; i < rowOffsets.length; ++i)
+            result.addPosition(rowOffsets[i], width - 1 - columnOffsets[i]);
+        return result.canonical();
+    }
+
+    /**
+     * Returns the row of every position, sorted row by row and then by column. The array must not be changed.
+     *
+     * @return the rows
+     */
+    int[] getRowOffsets() {
+        return rowOffsets;
+    }
+
+    /**
+     * Returns the column of every position, in the order of {@link #getRowOffsets()}. The array must not be changed.
+     *
+     * @return the columns
+     */
+    int[] getColumnOffsets() {
+        return columnOffsets;
+    }
+
+    /**
+     * Returns the occupied columns of a row as a bitmask; bit {@code c} of word {@code w} is set if column {@code 64 *
+     * w + c} is occupied.
+     *
+     * @param row  the row
+     * @param word the index of the word, below {@code (getWidth() + 63) / 64}
+     * @return the bitmask, 0 if the row is outside the bounding box
+     */
+    public long getRowMask(int row, int word) {
+        if (row < 0 || row >= height)
+            return 0;
+        return rowMasks[row * wordsPerRow + word];
     }
 
     /**
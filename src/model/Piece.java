@@ -28,6 +28,10 @@ public class Piece implements Comparable<Piece> {
      * All the possible orientations of this piece
      */
     private Set<Orientation> orientations;
+    /**
+     * The number of times every orientation was added again by {@link #addOrientations(Orientation, PieceSymmetry)}
+     */
+    private Map<Orientation, Integer> duplicateCounts;
 
     /**
      * Constructs a new piece object.
@@ -44,6 +48,7 @@ public class Piece implements Comparable<Piece> {
         this.name = name;
         this.color = color;
         orientations = new HashSet<Orientation>();
+        duplicateCounts = new HashMap<Orientation, Integer>();
     }
 
     /**
@@ -97,6 +102,49 @@ public class Piece implements Comparable<Piece> {
         return orientations.add(o);
     }
 
+    /**
+     * Adds the images of a base shape under a symmetry, in canonical form. An image which this piece already has is
+     * counted as a duplicate of it instead.
+     *
+     * @param base     the base shape
+     * @param symmetry which images are added
+     * @return the number of orientations which are added
+     * @throws IllegalArgumentException if the base shape is empty
+     * @see PieceSymmetry#images(Orientation)
+     */
+    public int addOrientations(Orientation base, PieceSymmetry symmetry) throws IllegalArgumentException {
+        int added = 0;
+        for (Orientation image : symmetry.images(base)) {
+            if (addOrientation(image))
+                ++added;
+            else
+                duplicateCounts.put(image, getDuplicateCount(image) + 1);
+        }
+        return added;
+    }
+
+    /**
+     * Returns the number of times an orientation was dropped by {@link #addOrientations(Orientation, PieceSymmetry)}
+     * because this piece already had it. Without dropping them every duplicate would have been another copy of the
+     * placements of the orientation.
+     *
+     * @param orientation the orientation
+     * @return the number of duplicates
+     */
+    public int getDuplicateCount(Orientation orientation) {
+        Integer count = duplicateCounts.get(orientation);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns the number of distinct orientations
+     *
+     * @return number of orientations
+     */
+    public int getOrientationCount() {
+        return orientations.size();
+    }
+
     /**
      * Compares this object with the specified object for order.  Returns a negative integer, zero, or a positive
      * integer as this object is less than, equal to, or greater than the specified object.
@@ -0,0 +1,41 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defines which orientations of a piece are generated from a base shape
+ *
+ * With {@code AS_GIVEN} only the base shape itself is used. {@code ROTATIONS} adds its rotations by 90, 180 and 270
+ * degrees, {@code ROTATIONS_AND_FLIPS} also the rotations of its mirror image. Images which are the same shape are added
+ * only once, see {@link Piece#addOrientations(Orientation, PieceSymmetry)}.
+ *
+ * @author Robert Leenders
+ * @see Orientation#canonical()
+ */
+public enum PieceSymmetry {
+    AS_GIVEN, ROTATIONS, ROTATIONS_AND_FLIPS;
+
+    /**
+     * Returns the images of a base shape, in canonical form; the same shape may occur more than once.
+     *
+     * @param base the base shape
+     * @return the images, starting with the base shape
+     */
+    public List<Orientation> images(Orientation base) {
+        List<Orientation> result = new ArrayList<Orientation>();
+        Orientation image = base.canonical();
+        for (int rotation = 0; rotation < (this == AS_GIVEN ? 1 : 4); ++rotation) {
+            result.add(image);
+            image = image.rotated();
+        }
+        if (this == ROTATIONS_AND_FLIPS) {
+            image = base.flipped();
+            for (int rotation = 0; rotation < 4; ++rotation) {
+                result.add(image);
+                image = image.rotated();
+            }
+        }
+        return result;
+    }
+}
@@ -38,9 +38,39 @@ public class Puzzle implements Iterable<List<Cell>> {
      */
     private List<BoxListener> listeners;
     /**
-     * Lists of solutions so far, so we can keep track of unique solutions
+     * Fingerprints of the solutions so far, so we can keep track of unique solutions
+     *
+     * @see Box#getFingerprint()
+     */
+    private Set<Long> solutionFingerprints;
+    /**
+     * String representations of the solutions so far, only kept when {@code verifySolutions} is set
+     */
+    private Set<String> solutionsSoFar;
+    /**
+     * Whether a solution with a known fingerprint is compared with the known solutions, to rule out a collision
+     */
+    private boolean verifySolutions = false;
+    /**
+     * The placements made by a solver during a solver session, {@code null} if there is no session
+     */
+    private List<Placement> sessionPlacements;
+    /**
+     * Number of {@code sessionPlacements} which are currently applied to the box
+     */
+    private int sessionPlacementsApplied;
+    /**
+     * Index in {@code sessionPlacedCounts} of every piece, by identity so no piece has to be hashed
+     */
+    private Map<Piece, Integer> sessionPieceIndexes;
+    /**
+     * Number of times every piece is placed during a solver session, including the placements made before it
      */
-    private List<String> solutionsSoFar;
+    private int[] sessionPlacedCounts;
+    /**
+     * Multiplicity of every piece, indexed like {@code sessionPlacedCounts}
+     */
+    private int[] sessionMultiplicities;
 
 
     /**
@@ -56,7 +86,23 @@ public class Puzzle implements Iterable<List<Cell>> {
         this.bagOfPieces = bagOfPieces;
         placedPiecesCount = new HashMap<Piece, Integer>();
         listeners = new ArrayList<BoxListener>();
-        solutionsSoFar = new ArrayList<String>();
+        solutionFingerprints = new HashSet<Long>();
+        solutionsSoFar = new HashSet<String>();
+    }
+
+    /**
+     * Returns a copy of this puzzle with the same bag of pieces and a new box, which is empty or holds the placements
+     * of this box. The listeners, the history and the solutions found so far aren't copied.
+     *
+     * @param keepPlacements whether the placements in the box are copied
+     * @return the copy
+     */
+    public Puzzle copy(boolean keepPlacements) {
+        Puzzle result = new Puzzle(name, new Box(box.getRowCount(), box.getColumnCount(), box.getBlockedPositions()), bagOfPieces);
+        if (keepPlacements)
+            for (Placement placement : box.getPlacements())
+                result.addPlacement(placement);
+        return result;
     }
 
     /**
@@ -136,18 +182,35 @@ public class Puzzle implements Iterable<List<Cell>> {
      */
     public void addPlacement(Placement placement) throws IllegalOperationException, MaximumPlacementsReached {
         addPlacement(placement, true);
+        rememberSolutionIfUnique();
+    }
+
+    /**
+     * Remembers the current box as a known solution, if it is a new one.
+     */
+    private void rememberSolutionIfUnique() {
         if (isUniquelySolved()) {
-            solutionsSoFar.add(box.toString());
+            solutionFingerprints.add(box.getFingerprint());
+            if (verifySolutions)
+                solutionsSoFar.add(box.toString());
         }
     }
 
     /**
      * Determines whether the current box is a solution and if so if it unique.
      *
+     * A solution is unique if its fingerprint hasn't been seen before. When {@code verifySolutions} is set, a known
+     * fingerprint is checked against the known solutions, so a fingerprint collision can't hide a new solution.
+     *
      * @return {@code true} when this solution is unique; false otherwise
+     * @see Box#getFingerprint()
      */
     public boolean isUniquelySolved() {
-        return isSolved() && !solutionsSoFar.contains(box.toString());
+        if (!isSolved())
+            return false;
+        if (!solutionFingerprints.contains(box.getFingerprint()))
+            return true;
+        return verifySolutions && !solutionsSoFar.contains(box.toString());
     }
 
     /**
@@ -155,13 +218,29 @@ public class Puzzle implements Iterable<List<Cell>> {
      * and it is not blocked.
      *
      * @return {@code true} if (\forall cell; cell in box; cell.state != free); false otherwise
+     * @see Box#getFreeCellCount()
      */
     public boolean isSolved() {
-        for (List<Cell> row : box)
-            for (Cell c : row)
-                if (c.getState() == CellState.FREE)
-                    return false;
-        return true;
+        return box.getFreeCellCount() == 0;
+    }
+
+    /**
+     * Returns whether solutions with a known fingerprint are compared with the known solutions.
+     *
+     * @return {@code true} if solutions are verified; false otherwise
+     */
+    public boolean isVerifySolutions() {
+        return verifySolutions;
+    }
+
+    /**
+     * Sets whether solutions with a known fingerprint are compared with the known solutions. This costs the string
+     * representation of every solution in memory, so it is off by default. It only affects solutions found afterwards.
+     *
+     * @param verifySolutions {@code true} to verify solutions; false otherwise
+     */
+    public void setVerifySolutions(boolean verifySolutions) {
+        this.verifySolutions = verifySolutions;
     }
 
     /**
@@ -181,6 +260,20 @@ public class Puzzle implements Iterable<List<Cell>> {
      * @see Box#addPlacement(Placement)
      */
     private void addPlacement(Placement placement, boolean isNewAction) throws IllegalOperationException, MaximumPlacementsReached {
+        placeInBox(placement);
+        updateUndoRedo(new Action(placement, PlacementAction.ADD), isNewAction);
+        notifyListenersPlacementAdded(placement);
+    }
+
+    /**
+     * Adds the placement to the box and counts it, without journaling or notifying the listeners.
+     *
+     * @param placement the placement
+     * @throws IllegalOperationException if the placement overlaps with the border of the box or if the cells overlap
+     * @throws MaximumPlacementsReached  if the maximum number of placement have been reached for the piece in the
+     *                                   placement
+     */
+    private void placeInBox(Placement placement) throws IllegalOperationException, MaximumPlacementsReached {
         // Amount of pieces already placed in the box of type piece from placement.
         Integer numPlaced = placedPiecesCount.get(placement.getPiece());
         if (numPlaced == null)
@@ -191,8 +284,123 @@ public class Puzzle implements Iterable<List<Cell>> {
 
         box.addPlacement(placement);
         placedPiecesCount.put(placement.getPiece(), numPlaced + 1);
-        updateUndoRedo(new Action(placement, PlacementAction.ADD), isNewAction);
-        notifyListenersPlacementAdded(placement);
+    }
+
+    /**
+     * Removes the placement from the box and uncounts it, without journaling or notifying the listeners.
+     *
+     * @param placement the placement
+     * @return the removed placement
+     */
+    private Placement removeFromBox(Placement placement) {
+        Placement removedPlacement = box.removePlacement(placement);
+        Piece removedPiece = removedPlacement.getPiece();
+        placedPiecesCount.put(removedPiece, placedPiecesCount.get(removedPiece) - 1);
+        return removedPlacement;
+    }
+
+    /**
+     * Starts a solver session. During a session a solver reports its placements with {@link
+     * #addSolverPlacement(Placement)} and {@link #removeSolverPlacement()}, which only push and pop them on a stack:
+     * there is no undo/redo journal, no listener is notified and the box is left alone. Only when the solver reports a
+     * solution, {@link #applySolverPlacements()} puts the placements in the box.
+     *
+     * @throws IllegalOperationException if a solver session is already started
+     * @see #endSolverSession()
+     */
+    public void beginSolverSession() throws IllegalOperationException {
+        if (sessionPlacements != null)
+            throw new IllegalOperationException("A solver session is already started.");
+
+        sessionPlacements = new ArrayList<Placement>();
+        sessionPlacementsApplied = 0;
+        sessionPieceIndexes = new IdentityHashMap<Piece, Integer>();
+        sessionPlacedCounts = new int[bagOfPieces.getPieces().size()];
+        sessionMultiplicities = new int[sessionPlacedCounts.length];
+        int index = 0;
+        for (Piece piece : bagOfPieces) {
+            sessionPieceIndexes.put(piece, index);
+            sessionPlacedCounts[index] = piece.getMultiplicity() - getRemainingPlacementsOfPiece(piece);
+            sessionMultiplicities[index] = piece.getMultiplicity();
+            ++index;
+        }
+    }
+
+    /**
+     * Ends the solver session. Placements which are applied to the box stay there (so a solver which is stopped at a
+     * solution leaves it in the box), the others are forgotten.
+     *
+     * @throws IllegalOperationException if no solver session is started
+     */
+    public void endSolverSession() throws IllegalOperationException {
+        if (sessionPlacements == null)
+            throw new IllegalOperationException("No solver session is started.");
+        sessionPlacements = null;
+        sessionPieceIndexes = null;
+        sessionPlacedCounts = null;
+        sessionMultiplicities = null;
+    }
+
+    /**
+     * Returns whether a solver session is started.
+     *
+     * @return {@code true} if a solver session is started; false otherwise
+     */
+    public boolean isInSolverSession() {
+        return sessionPlacements != null;
+    }
+
+    /**
+     * Pushes a placement made by the solver. The solver is responsible for not overlapping placements.
+     *
+     * @param placement the placement
+     * @throws MaximumPlacementsReached if the maximum number of placement have been reached for the piece in the
+     *                                  placement
+     * @pre {@code isInSolverSession()}
+     */
+    public void addSolverPlacement(Placement placement) throws MaximumPlacementsReached {
+        int index = sessionPieceIndexes.get(placement.getPiece());
+        if (sessionPlacedCounts[index] == sessionMultiplicities[index])
+            throw new MaximumPlacementsReached("The maximum amount of pieces placed of this type is reached.", placement.getPiece());
+        ++sessionPlacedCounts[index];
+        sessionPlacements.add(placement);
+    }
+
+    /**
+     * Pops the last placement made by the solver.
+     *
+     * @pre {@code isInSolverSession()} and the last placement is not applied to the box
+     */
+    public void removeSolverPlacement() {
+        Placement placement = sessionPlacements.remove(sessionPlacements.size() - 1);
+        --sessionPlacedCounts[sessionPieceIndexes.get(placement.getPiece())];
+    }
+
+    /**
+     * Puts the placements of the solver in the box, so the puzzle shows the solution. The listeners are notified, but
+     * the undo/redo journal is left alone.
+     *
+     * @pre {@code isInSolverSession()}
+     */
+    public void applySolverPlacements() {
+        for (; sessionPlacementsApplied < sessionPlacements.size(); ++sessionPlacementsApplied) {
+            Placement placement = sessionPlacements.get(sessionPlacementsApplied);
+            placeInBox(placement);
+            notifyListenersPlacementAdded(placement);
+        }
+        rememberSolutionIfUnique();
+    }
+
+    /**
+     * Takes the placements of the solver out of the box again, undoing {@link #applySolverPlacements()}.
+     *
+     * @pre {@code isInSolverSession()}
+     */
+    public void revertSolverPlacements() {
+        while (sessionPlacementsApplied > 0) {
+            Placement placement = sessionPlacements.get(--sessionPlacementsApplied);
+            notifyListenersPlacementRemoved(removeFromBox(placement));
+        }
     }
 
     /**
@@ -315,6 +523,8 @@ public class Puzzle implements Iterable<List<Cell>> {
      * @return remaining number placements for piece p
      */
     public int getRemainingPlacementsOfPiece(Piece p) {
+        if (sessionPlacements != null && sessionPieceIndexes.containsKey(p))
+            return p.getMultiplicity() - sessionPlacedCounts[sessionPieceIndexes.get(p)];
         int max = p.getMultiplicity();
         Integer numPlaced = placedPiecesCount.get(p);
         if (numPlaced == null)
@@ -382,9 +592,7 @@ public class Puzzle implements Iterable<List<Cell>> {
      * @modifies box, placedPiecesCount
      */
     private void removePlacement(Placement placement, boolean isNewAction) {
-        Placement removedPlacement = box.removePlacement(placement);
-        Piece removedPiece = removedPlacement.getPiece();
-        placedPiecesCount.put(removedPiece, placedPiecesCount.get(removedPiece) - 1);
+        Placement removedPlacement = removeFromBox(placement);
         updateUndoRedo(new Action(placement, PlacementAction.REMOVE), isNewAction);
         notifyListenersPlacementRemoved(removedPlacement);
     }
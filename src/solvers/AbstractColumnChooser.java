@@ -0,0 +1,26 @@
+package solvers;
+
+/**
+ * Column chooser which doesn't track the sizes; a subclass only makes the choice.
+ *
+ * @author Robert Leenders
+ * @see ColumnChooser
+ */
+public abstract class AbstractColumnChooser implements ColumnChooser {
+
+    public void init(DLX.Column root) {
+    }
+
+    public boolean tracksSizes() {
+        return false;
+    }
+
+    public void columnCovered(DLX.Column column) {
+    }
+
+    public void columnUncovered(DLX.Column column) {
+    }
+
+    public void sizeChanged(DLX.Column column) {
+    }
+}
@@ -0,0 +1,509 @@
+package solvers;
+
+import model.Placement;
+import model.Puzzle;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solver which uses the DLX algorithm, with the links stored in parallel {@code int} arrays instead of a graph of
+ * {@code Node} objects.
+ *
+ * The columns and rows are laid out exactly like in {@link DLX}, so both solvers report the same solutions in the same
+ * order as long as every piece has multiplicity one. A piece with more copies has a single column which must be covered
+ * that many times, so a tiling is reported once instead of once for every order of the copies.
+ *
+ * By default the search runs in a solver session of the puzzle, so its placements are only put in the box (and reported
+ * to the box listeners) at a solution. With {@code tracePlacements} set every placement of the search goes to the box.
+ *
+ * With {@code symmetryBreaking} set only one tiling of every group of symmetric tilings is searched, see {@link
+ * Symmetry}; it is reported alone, or together with its symmetric images. With {@code pruneDeadRegions} set a branch is
+ * cut as soon as it leaves a region of free cells which the remaining pieces can't fill, see {@link Regions}.
+ *
+ * {@link #countAll()} runs the same search on the links alone, without touching the puzzle or the listeners, when only
+ * the number of solutions is needed. With a {@link TranspositionTable} it counts a subproblem which it has already
+ * counted only once. {@link #buildZdd()} runs it once more to keep every solution in a {@link Zdd} instead of reporting
+ * them.
+ *
+ * @author Robert Leenders
+ * @see DLX
+ * @see Links
+ */
+public class ArrayDLX extends Solver {
+    /**
+     * The dancing links
+     */
+    Links links;
+    /**
+     * The full exact cover matrix
+     */
+    private Matrix matrix;
+    /**
+     * The placement of every row
+     */
+    private Placement[] placementOfRow;
+    /**
+     * How the symmetries of the box are dealt with
+     */
+    private SymmetryBreaking symmetryBreaking = SymmetryBreaking.NONE;
+    /**
+     * The symmetries of the puzzle, {@code null} when they aren't broken
+     */
+    private Symmetry symmetry;
+    /**
+     * The placements chosen so far
+     */
+    private Placement[] path;
+    /**
+     * Number of placements in {@code path}
+     */
+    private int depth = 0;
+    /**
+     * Whether branches which leave a region that can't be filled are cut
+     */
+    private boolean pruneDeadRegions = false;
+    /**
+     * The regions of the cell columns
+     */
+    private Regions regions;
+    /**
+     * The size of every piece, indexed like the piece columns
+     */
+    private int[] pieceSizes;
+    /**
+     * The number of remaining copies of every piece, filled before every region check
+     */
+    private int[] pieceRemaining;
+    /**
+     * The counts of the subproblems of {@link #countAll()}, {@code null} for none
+     */
+    private TranspositionTable transpositionTable;
+    /**
+     * Seeds of the two hashes of a subproblem
+     */
+    private static final long SEED1 = 0x243F6A8885A308D3L, SEED2 = 0x13198A2E03707344L;
+    /**
+     * Mixed into the seeds when the matrix is restricted by symmetry breaking
+     */
+    private static final long RESTRICTED_SEED = 0xA4093822299F31D0L;
+    /**
+     * Whether every placement of the search is added to the puzzle, instead of only the solutions
+     */
+    private boolean tracePlacements = false;
+    private volatile boolean stopSolver = false;
+
+
+    /**
+     * Constructs a new solver for given puzzle.
+     *
+     * @param puzzle the puzzle to be solved
+     */
+    public ArrayDLX(Puzzle puzzle) {
+        this(puzzle, null);
+    }
+
+    /**
+     * Constructs a new solver for given puzzle, of which the matrix is read from a cache or built and stored in it.
+     *
+     * @param puzzle      the puzzle to be solved
+     * @param matrixCache the cache of matrices, {@code null} to build the matrix
+     */
+    public ArrayDLX(Puzzle puzzle, MatrixCache matrixCache) {
+        super(puzzle);
+        matrix = matrixCache != null ? matrixCache.build(puzzle) : Matrix.build(puzzle);
+        path = new Placement[matrix.cellColumnCount + 1];
+        setLinks(matrix);
+
+        regions = new Regions(Regions.neighbours(matrix.columnPositions));
+        pieceSizes = new int[matrix.pieces.size()];
+        pieceRemaining = new int[pieceSizes.length];
+        for (int[] row : matrix.rows)
+            pieceSizes[row[row.length - 1] - matrix.cellColumnCount] = row.length - 1;
+    }
+
+    private void setLinks(Matrix matrix) {
+        links = new Links(matrix);
+        placementOfRow = matrix.placementOfRow.toArray(new Placement[matrix.rows.size()]);
+    }
+
+    /**
+     * Finds all solutions of the puzzle, and reports them one by one to the listener.
+     */
+    @Override
+    public void findAll() {
+        if (tracePlacements) {
+            search();
+        } else {
+            puzzle.beginSolverSession();
+            try {
+                search();
+            } finally {
+                puzzle.endSolverSession();
+            }
+        }
+    }
+
+    private void search() {
+        if (stopSolver)
+            return;
+
+        if (links.isSolved()) {
+            ++nSolutionsFound;
+            if (tracePlacements) {
+                puzzleSolved();
+            } else {
+                puzzle.applySolverPlacements();
+                puzzleSolved();
+                if (!stopSolver)
+                    puzzle.revertSolverPlacements();
+            }
+            if (symmetryBreaking == SymmetryBreaking.EXPAND)
+                for (Placement[] image : symmetry.images(path, depth))
+                    if (!stopSolver)
+                        reportImage(image);
+            return;
+        }
+
+        if (pruneDeadRegions && depth > 0 && hasDeadRegion()) {
+            ++nNodesPruned;
+            return;
+        }
+
+        int c = links.chooseColumn();
+        links.beginColumn(c);
+
+        for (int r = links.down[c]; r != c; r = links.down[r]) {
+            ++nNodesVisited;
+            Placement placement = placementOfRow[links.row[r]];
+            path[depth++] = placement;
+            if (tracePlacements)
+                puzzle.addPlacement(placement);
+            else
+                puzzle.addSolverPlacement(placement);
+            links.selectRow(c, r);
+
+            search();
+            if (stopSolver)
+                return;
+
+            links.unselectRow(c, r);
+            if (tracePlacements)
+                puzzle.removePlacement(placement);
+            else
+                puzzle.removeSolverPlacement();
+            --depth;
+        }
+
+        links.endColumn(c);
+    }
+
+    /**
+     * Counts the solutions of the puzzle without reporting them: the puzzle, its box and the listeners are left alone
+     * and {@code nSolutionsFound} isn't changed. The visited nodes are counted as usual. When the solver is stopped the
+     * count so far is returned.
+     *
+     * With {@code symmetryBreaking} set to {@code CANONICAL} only the canonical solutions are counted; with {@code
+     * EXPAND} their count is multiplied by the number of symmetries.
+     *
+     * @return the number of solutions
+     */
+    public long countAll() {
+        long count = count();
+        return symmetryBreaking == SymmetryBreaking.EXPAND ? count * getSymmetryOrder() : count;
+    }
+
+    private long count() {
+        if (stopSolver)
+            return 0;
+        if (links.isSolved())
+            return 1;
+        if (pruneDeadRegions && hasDeadRegion()) {
+            ++nNodesPruned;
+            return 0;
+        }
+
+        boolean memoize = transpositionTable != null && !links.hasHiddenRows();
+        long key1 = 0, key2 = 0;
+        if (memoize) {
+            // A restricted matrix has other rows with the same columns, so its subproblems get other keys
+            long seed = getSymmetryOrder() > 1 ? RESTRICTED_SEED : 0;
+            key1 = links.hashActiveColumns(SEED1 ^ seed);
+            key2 = links.hashActiveColumns(SEED2 ^ seed);
+            long cached = transpositionTable.get(key1, key2);
+            if (cached >= 0)
+                return cached;
+        }
+
+        long nodesBefore = nNodesVisited;
+        long count = 0;
+        int c = links.chooseColumn();
+        links.beginColumn(c);
+        for (int r = links.down[c]; r != c; r = links.down[r]) {
+            ++nNodesVisited;
+            links.selectRow(c, r);
+            count += count();
+            links.unselectRow(c, r);
+        }
+        links.endColumn(c);
+
+        // The count of a stopped search is partial and must not outlive it
+        if (memoize && !stopSolver)
+            transpositionTable.put(key1, key2, count, nNodesVisited - nodesBefore);
+        return count;
+    }
+
+    /**
+     * Builds a zero-suppressed decision diagram of the solutions of the puzzle, like Knuth's DXZ: the search of {@link
+     * #countAll()}, in which every subproblem becomes a chain of nodes, one per row of the chosen column, of which the
+     * {@code hi} child is the diagram of the subproblem after the row. Subproblems with the same active columns are
+     * only searched once and share their diagram; like in {@code countAll()}, subproblems with hidden rows aren't
+     * shared. The puzzle and the listeners are left alone. When the solver is stopped the diagram holds only part of
+     * the solutions.
+     *
+     * With {@code symmetryBreaking} set the diagram only holds the canonical solutions. The variables of the diagram
+     * are the rows of the searched matrix; {@link #getPlacements(int[])} turns a solution into placements.
+     *
+     * @return the diagram of all solutions
+     */
+    public Zdd buildZdd() {
+        Zdd zdd = new Zdd(placementOfRow.length);
+        zdd.setRoot(buildZdd(zdd, new HashMap<ColumnKey, Integer>()));
+        return zdd;
+    }
+
+    private int buildZdd(Zdd zdd, Map<ColumnKey, Integer> memo) {
+        if (stopSolver)
+            return Zdd.BOTTOM;
+        if (links.isSolved())
+            return Zdd.TOP;
+        if (pruneDeadRegions && hasDeadRegion()) {
+            ++nNodesPruned;
+            return Zdd.BOTTOM;
+        }
+
+        ColumnKey key = links.hasHiddenRows() ? null : new ColumnKey(links.activeColumnKey());
+        if (key != null) {
+            Integer node = memo.get(key);
+            if (node != null)
+                return node;
+        }
+
+        int c = links.chooseColumn();
+        int[] rows = new int[links.size[c]];
+        int[] his = new int[rows.length];
+        int n = 0;
+        links.beginColumn(c);
+        for (int r = links.down[c]; r != c; r = links.down[r]) {
+            ++nNodesVisited;
+            links.selectRow(c, r);
+            rows[n] = links.row[r];
+            his[n++] = buildZdd(zdd, memo);
+            links.unselectRow(c, r);
+        }
+        links.endColumn(c);
+
+        int result = Zdd.BOTTOM;
+        for (int i = n - 1; i >= 0; --i)
+            result = zdd.add(rows[i], result, his[i]);
+        if (key != null && !stopSolver)
+            memo.put(key, result);
+        return result;
+    }
+
+    /**
+     * Returns the placements of a solution of the diagram of {@link #buildZdd()}.
+     *
+     * @param rows the rows of the solution
+     * @return the placement of every row
+     * @throws IllegalArgumentException if a row isn't a row of the searched matrix
+     */
+    public Placement[] getPlacements(int[] rows) throws IllegalArgumentException {
+        Placement[] result = new Placement[rows.length];
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] < 0 || rows[i] >= placementOfRow.length)
+                throw new IllegalArgumentException("row is out of range; row:" + rows[i]);
+            result[i] = placementOfRow[rows[i]];
+        }
+        return result;
+    }
+
+    /**
+     * The active columns of a subproblem, as a key of the subproblems of {@link #buildZdd()}
+     */
+    private static final class ColumnKey {
+        private final long[] words;
+        private final int hash;
+
+        ColumnKey(long[] words) {
+            this.words = words;
+            hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ColumnKey && Arrays.equals(words, ((ColumnKey) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Returns whether the uncovered cell columns have a region which the remaining pieces can't fill.
+     */
+    private boolean hasDeadRegion() {
+        for (int i = 0; i < regions.free.length; ++i)
+            regions.free[i] = links.remaining[i + 1] != 0;
+        for (int p = 0; p < pieceRemaining.length; ++p)
+            pieceRemaining[p] = links.remaining[matrix.cellColumnCount + 1 + p];
+        return regions.hasDeadRegion(pieceSizes, pieceRemaining);
+    }
+
+    /**
+     * Reports a symmetric image of the solution in {@code path}, by swapping the placements of the solution for those of
+     * the image and back again. When the solver is stopped by a listener, the image stays in the puzzle.
+     *
+     * @param image the placements of the image
+     */
+    private void reportImage(Placement[] image) {
+        for (int i = depth - 1; i >= 0; --i) {
+            if (tracePlacements)
+                puzzle.removePlacement(path[i]);
+            else
+                puzzle.removeSolverPlacement();
+        }
+        for (Placement placement : image) {
+            if (tracePlacements)
+                puzzle.addPlacement(placement);
+            else
+                puzzle.addSolverPlacement(placement);
+        }
+
+        ++nSolutionsFound;
+        if (!tracePlacements)
+            puzzle.applySolverPlacements();
+        puzzleSolved();
+        if (stopSolver)
+            return;
+        if (!tracePlacements)
+            puzzle.revertSolverPlacements();
+
+        for (int i = image.length - 1; i >= 0; --i) {
+            if (tracePlacements)
+                puzzle.removePlacement(image[i]);
+            else
+                puzzle.removeSolverPlacement();
+        }
+        for (int i = 0; i < depth; ++i) {
+            if (tracePlacements)
+                puzzle.addPlacement(path[i]);
+            else
+                puzzle.addSolverPlacement(path[i]);
+        }
+    }
+
+    /**
+     * Returns the number of rows of the exact cover matrix, before symmetry breaking.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return matrix.rows.size();
+    }
+
+    /**
+     * Returns the number of rows the matrix would have had more with the duplicate orientations of the pieces.
+     *
+     * @return the number of rows saved by dropping duplicate orientations
+     * @see model.Piece#getDuplicateCount(model.Orientation)
+     */
+    public int getDuplicateRowCount() {
+        return matrix.duplicateRowCount();
+    }
+
+    public boolean isTracePlacements() {
+        return tracePlacements;
+    }
+
+    /**
+     * Sets whether every placement of the search is added to the puzzle, so box listeners can follow the search. This
+     * is a lot slower than only adding the solutions.
+     *
+     * @param tracePlacements {@code true} to add every placement; false to only add the solutions
+     */
+    public void setTracePlacements(boolean tracePlacements) {
+        this.tracePlacements = tracePlacements;
+    }
+
+    public boolean isPruneDeadRegions() {
+        return pruneDeadRegions;
+    }
+
+    /**
+     * Sets whether a branch which leaves a region of free cells that the remaining pieces can't fill is cut. The number
+     * of cut branches is counted in {@link #getNNodesPruned()}.
+     *
+     * @param pruneDeadRegions {@code true} to cut such branches; false otherwise
+     */
+    public void setPruneDeadRegions(boolean pruneDeadRegions) {
+        this.pruneDeadRegions = pruneDeadRegions;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets the table in which {@link #countAll()} keeps the counts of subproblems. The table keeps its entries between
+     * searches, so it can only be shared by searches of the same matrix; {@link TranspositionTable#clear()} empties it.
+     * The keys hash the active columns and whether the matrix is restricted by symmetry breaking, so searches with and
+     * without symmetry breaking can share a table. A stopped search stores no counts.
+     *
+     * @param transpositionTable the table, {@code null} to count without one
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    public SymmetryBreaking getSymmetryBreaking() {
+        return symmetryBreaking;
+    }
+
+    /**
+     * Sets how the symmetries of the box are dealt with. Breaking them cuts the search by the number of symmetries of
+     * the puzzle, see {@link #getSymmetryOrder()}.
+     *
+     * @param symmetryBreaking the way to deal with symmetries
+     * @throws IllegalArgumentException if {@code symmetryBreaking} is {@code null}
+     */
+    public void setSymmetryBreaking(SymmetryBreaking symmetryBreaking) throws IllegalArgumentException {
+        if (symmetryBreaking == null)
+            throw new IllegalArgumentException("symmetryBreaking is null");
+        this.symmetryBreaking = symmetryBreaking;
+        if (symmetryBreaking == SymmetryBreaking.NONE) {
+            symmetry = null;
+            setLinks(matrix);
+        } else {
+            symmetry = new Symmetry(matrix, puzzle.getBox());
+            setLinks(symmetry.restrict());
+        }
+    }
+
+    /**
+     * Returns the number of symmetries which are broken, including the identity.
+     *
+     * @return the factor by which the search is cut, 1 if the symmetries aren't broken
+     */
+    public int getSymmetryOrder() {
+        return symmetry == null ? 1 : symmetry.getOrder();
+    }
+
+    @Override
+    public void stop() {
+        stopSolver = true;
+    }
+}
@@ -0,0 +1,555 @@
+package solvers;
+
+import model.Puzzle;
+import textio.PuzzleReader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solves puzzle files without the GUI, several at a time on a bounded pool of threads.
+ *
+ * Every puzzle is solved with an {@link ArrayDLX} in one of three modes: {@code FIRST} stops at the first solution,
+ * {@code COUNT} counts the solutions with {@link ArrayDLX#countAll()} and {@code ALL} writes a record with the number
+ * and the box of every solution as soon as it is found, or with a solutions directory streams the solutions to a file
+ * of {@link SolutionWriter} in it. The timeout of a puzzle covers its estimate, the building of its matrix and its
+ * search; a puzzle which takes longer is stopped and reported with the counts so far. A result is written as soon as
+ * its puzzle is done, as one line of JSON or CSV, so the order of the lines is the order in which the puzzles finish.
+ * With an estimate a puzzle first gets a record with status {@code estimate} and the confidence intervals, before its
+ * search starts, so a search which will take too long can be seen and stopped.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ */
+public class BatchSolver {
+    /**
+     * What is searched for every puzzle
+     */
+    public enum Mode {
+        FIRST, COUNT, ALL
+    }
+
+    /**
+     * How the results are written
+     */
+    public enum Format {
+        JSON, CSV
+    }
+
+    /**
+     * The fields of a result, in the order of the CSV columns
+     */
+    private static final String[] FIELDS = {"file", "name", "mode", "status", "solutions", "nodes", "millis",
+            "estimatedNodes", "estimatedNodesLow", "estimatedNodesHigh", "estimatedSolutions", "estimatedSolutionsLow",
+            "estimatedSolutionsHigh", "estimatedSeconds", "number", "solution", "solutionsFile", "error"};
+    private final PrintStream out;
+    private Mode mode = Mode.COUNT;
+    private Format format = Format.JSON;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * The maximum time per puzzle in milliseconds, 0 for none
+     */
+    private long timeout = 0;
+    /**
+     * Number of probes of the tree size estimate of every puzzle, 0 for no estimate
+     */
+    private int estimateProbes = 0;
+    /**
+     * The directory the solutions of mode {@code ALL} are written to, {@code null} to write them as records
+     */
+    private File solutionsDirectory = null;
+    /**
+     * The cache of the matrices of the puzzles, {@code null} for none
+     */
+    private MatrixCache matrixCache = null;
+
+
+    /**
+     * Constructs a batch solver which writes its results to {@code out}.
+     *
+     * @param out the stream to write the results to
+     */
+    public BatchSolver(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Solves the given puzzle files and writes a result for every one, then returns.
+     *
+     * @param files the puzzle files
+     * @throws InterruptedException if the thread is interrupted while waiting for the puzzles
+     */
+    public void solveAll(List<File> files) throws InterruptedException {
+        if (format == Format.CSV)
+            writeLine(csvHeader());
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (final File file : files) {
+                pool.execute(new Runnable() {
+                    public void run() {
+                        writeResult(solve(file, timer));
+                    }
+                });
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // wait for the remaining puzzles
+            }
+        } finally {
+            pool.shutdownNow();
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves one puzzle file. Anything thrown, including an error like {@code StackOverflowError} of a large puzzle, is
+     * put in the result, so the other puzzles are still solved.
+     *
+     * @return the fields of the result
+     */
+    private Map<String, Object> solve(File file, ScheduledExecutorService timer) {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("file", file.getPath());
+        result.put("mode", mode.name().toLowerCase());
+        Puzzle puzzle;
+        try {
+            puzzle = PuzzleReader.read(file);
+        } catch (FileNotFoundException e) {
+            return error(result, "File not found: " + e.getMessage());
+        } catch (Throwable e) {
+            return error(result, "Not a puzzle file: " + e);
+        }
+        result.put("name", puzzle.getName());
+        // The fields of the record of every solution in mode ALL
+        final Map<String, Object> record = new LinkedHashMap<String, Object>(result);
+
+        Timeout stopper = new Timeout();
+        ScheduledFuture<?> stopperFuture = timeout > 0 ? timer.schedule(stopper, timeout, TimeUnit.MILLISECONDS) : null;
+        try {
+            if (estimateProbes > 0) {
+                TreeSizeEstimator estimator = new TreeSizeEstimator(puzzle);
+                stopper.setRunning(estimator);
+                TreeSizeEstimate estimate = estimator.estimate(estimateProbes);
+                if (estimate != null) {
+                    result.put("estimatedNodes", Math.round(estimate.getNodes()));
+                    result.put("estimatedSolutions", Math.round(estimate.getSolutions()));
+                    if (!stopper.hasExpired())
+                        writeResult(estimateRecord(record, estimate));
+                }
+            }
+            if (stopper.hasExpired()) {
+                result.put("status", "timeout");
+                return result;
+            }
+
+            final ArrayDLX arrayDLX = new ArrayDLX(puzzle, matrixCache);
+            stopper.setRunning(arrayDLX);
+            long start = System.nanoTime();
+            long solutions;
+            if (mode == Mode.COUNT) {
+                solutions = arrayDLX.countAll();
+            } else {
+                final String[] first = new String[1];
+                final SolutionWriter solutionWriter;
+                if (mode == Mode.ALL && solutionsDirectory != null) {
+                    File solutionsFile = new File(solutionsDirectory, solutionsFileName(file));
+                    solutionWriter = new SolutionWriter(solutionsFile, puzzle);
+                    arrayDLX.addListener(solutionWriter);
+                    result.put("solutionsFile", solutionsFile.getPath());
+                } else {
+                    solutionWriter = null;
+                }
+                arrayDLX.addListener(new SolverListener() {
+                    public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                        if (mode == Mode.FIRST) {
+                            first[0] = puzzle.boxToString();
+                            arrayDLX.stop();
+                        } else if (solutionWriter == null) {
+                            record.put("status", "solution");
+                            record.put("number", solutionNumber);
+                            record.put("solution", puzzle.boxToString());
+                            writeResult(record);
+                        }
+                    }
+                });
+                try {
+                    arrayDLX.findAll();
+                } finally {
+                    if (solutionWriter != null)
+                        solutionWriter.close();
+                }
+                solutions = arrayDLX.getNSolutionsFound();
+                if (first[0] != null)
+                    result.put("solution", first[0]);
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            result.put("status", stopper.finish() ? "done" : "timeout");
+            result.put("solutions", solutions);
+            result.put("nodes", arrayDLX.getNNodesVisited());
+            result.put("millis", millis);
+        } catch (IOException e) {
+            return error(result, "Could not write the solutions: " + e.getMessage());
+        } catch (Throwable e) {
+            return error(result, e.toString());
+        } finally {
+            if (stopperFuture != null)
+                stopperFuture.cancel(false);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the record of the estimate of a puzzle, with the confidence intervals.
+     *
+     * @param fields the fields of the puzzle
+     */
+    private static Map<String, Object> estimateRecord(Map<String, Object> fields, TreeSizeEstimate estimate) {
+        Map<String, Object> result = new LinkedHashMap<String, Object>(fields);
+        result.put("status", "estimate");
+        result.put("estimatedNodes", Math.round(estimate.getNodes()));
+        result.put("estimatedNodesLow", Math.round(estimate.getNodesLow()));
+        result.put("estimatedNodesHigh", Math.round(estimate.getNodesHigh()));
+        result.put("estimatedSolutions", Math.round(estimate.getSolutions()));
+        result.put("estimatedSolutionsLow", Math.round(estimate.getSolutionsLow()));
+        result.put("estimatedSolutionsHigh", Math.round(estimate.getSolutionsHigh()));
+        result.put("estimatedSeconds", estimate.getSeconds());
+        return result;
+    }
+
+    /**
+     * Returns the name of the solutions file of a puzzle file: its name with {@code .bin} instead of {@code .txt}.
+     */
+    static String solutionsFileName(File file) {
+        return file.getName().replaceFirst("\\.txt$", "") + ".bin";
+    }
+
+    /**
+     * Stops what is running of the solve of a puzzle when the timeout of the puzzle expires, unless the solve is over.
+     */
+    private static class Timeout implements Runnable {
+        /**
+         * Whether either the timeout expired or the solve is over, whichever is first
+         */
+        private final AtomicBoolean over = new AtomicBoolean();
+        private volatile boolean expired = false;
+        /**
+         * The estimator or the solver which is running
+         */
+        private volatile Object running;
+
+        public void run() {
+            if (over.compareAndSet(false, true)) {
+                expired = true;
+                stop(running);
+            }
+        }
+
+        /**
+         * Sets what is running, which is stopped at once if the timeout already expired.
+         */
+        void setRunning(Object running) {
+            this.running = running;
+            if (expired)
+                stop(running);
+        }
+
+        private static void stop(Object running) {
+            if (running instanceof TreeSizeEstimator)
+                ((TreeSizeEstimator) running).stop();
+            else if (running instanceof Solver)
+                ((Solver) running).stop();
+        }
+
+        boolean hasExpired() {
+            return expired;
+        }
+
+        /**
+         * Ends the solve, so an expiring timeout no longer stops it.
+         *
+         * @return whether the solve was over before the timeout expired
+         */
+        boolean finish() {
+            return over.compareAndSet(false, true);
+        }
+    }
+
+    private static Map<String, Object> error(Map<String, Object> result, String message) {
+        result.put("status", "error");
+        result.put("error", message);
+        return result;
+    }
+
+    private void writeResult(Map<String, Object> result) {
+        writeLine(format == Format.JSON ? json(result) : csv(result));
+    }
+
+    private synchronized void writeLine(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    /**
+     * Returns a result as a line of JSON, with only the fields which are set.
+     */
+    static String json(Map<String, Object> result) {
+        StringBuilder builder = new StringBuilder("{");
+        for (Map.Entry<String, Object> entry : result.entrySet()) {
+            if (builder.length() > 1)
+                builder.append(',');
+            builder.append('"').append(entry.getKey()).append("\":");
+            if (entry.getValue() instanceof Number)
+                builder.append(entry.getValue());
+            else
+                appendJsonString(builder, entry.getValue().toString());
+        }
+        return builder.append('}').toString();
+    }
+
+    private static void appendJsonString(StringBuilder builder, String s) {
+        builder.append('"');
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    static String csvHeader() {
+        StringBuilder builder = new StringBuilder();
+        for (String field : FIELDS) {
+            if (builder.length() > 0)
+                builder.append(',');
+            builder.append(field);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a result as a line of CSV with a column for every field; a field which isn't set is empty and text is
+     * quoted, with the lines of a solution separated by '/'.
+     */
+    static String csv(Map<String, Object> result) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < FIELDS.length; ++i) {
+            if (i > 0)
+                builder.append(',');
+            Object value = result.get(FIELDS[i]);
+            if (value instanceof Number)
+                builder.append(value);
+            else if (value != null)
+                builder.append('"').append(value.toString().replaceAll("\r?\n", "/").replace("\"", "\"\"")).append('"');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the puzzle files of the given paths: a file is taken as it is, a directory gives the puzzle files in it,
+     * sorted by name.
+     *
+     * @param paths files and directories
+     * @return the puzzle files
+     */
+    static List<File> puzzleFiles(List<String> paths) {
+        List<File> result = new ArrayList<File>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (!file.isDirectory()) {
+                result.add(file);
+                continue;
+            }
+            File[] children = file.listFiles();
+            if (children == null)
+                continue;
+            Arrays.sort(children);
+            for (File child : children)
+                if (PuzzleReader.isPuzzleFile(child))
+                    result.add(child);
+        }
+        return result;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets what is searched for every puzzle.
+     *
+     * @param mode the mode
+     * @throws IllegalArgumentException if {@code mode} is {@code null}
+     */
+    public void setMode(Mode mode) throws IllegalArgumentException {
+        if (mode == null)
+            throw new IllegalArgumentException("mode is null");
+        this.mode = mode;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets how the results are written.
+     *
+     * @param format the format
+     * @throws IllegalArgumentException if {@code format} is {@code null}
+     */
+    public void setFormat(Format format) throws IllegalArgumentException {
+        if (format == null)
+            throw new IllegalArgumentException("format is null");
+        this.format = format;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of puzzles which are solved at the same time.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public void setThreads(int threads) throws IllegalArgumentException {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads is below 1; threads:" + threads);
+        this.threads = threads;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time of a puzzle, for its estimate, the building of its matrix and its search.
+     *
+     * @param timeout the timeout in milliseconds, 0 for none
+     * @throws IllegalArgumentException if {@code timeout < 0}
+     */
+    public void setTimeout(long timeout) throws IllegalArgumentException {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout is below 0; timeout:" + timeout);
+        this.timeout = timeout;
+    }
+
+    public int getEstimateProbes() {
+        return estimateProbes;
+    }
+
+    /**
+     * Sets the number of probes of a tree size estimate of every puzzle, which is written as a record of its own before
+     * the search and added to the result.
+     *
+     * @param estimateProbes the number of probes, 0 for no estimate
+     * @throws IllegalArgumentException if {@code estimateProbes} is below 0 or 1
+     * @see TreeSizeEstimator
+     */
+    public void setEstimateProbes(int estimateProbes) throws IllegalArgumentException {
+        if (estimateProbes < 0 || estimateProbes == 1)
+            throw new IllegalArgumentException("estimateProbes is below 0 or 1; estimateProbes:" + estimateProbes);
+        this.estimateProbes = estimateProbes;
+    }
+
+    public File getSolutionsDirectory() {
+        return solutionsDirectory;
+    }
+
+    /**
+     * Sets the directory the solutions of mode {@code ALL} are written to, one file of {@link SolutionWriter} per
+     * puzzle named after the puzzle file. It is made if it doesn't exist.
+     *
+     * @param solutionsDirectory the directory, {@code null} to write every solution as a record
+     * @throws IllegalArgumentException if the directory can't be made
+     */
+    public void setSolutionsDirectory(File solutionsDirectory) throws IllegalArgumentException {
+        if (solutionsDirectory != null && !solutionsDirectory.isDirectory() && !solutionsDirectory.mkdirs())
+            throw new IllegalArgumentException("solutionsDirectory can't be made; solutionsDirectory:" + solutionsDirectory);
+        this.solutionsDirectory = solutionsDirectory;
+    }
+
+    public MatrixCache getMatrixCache() {
+        return matrixCache;
+    }
+
+    /**
+     * Sets the cache the matrices of the searches are read from and stored in.
+     *
+     * @param matrixCache the cache, {@code null} to build every matrix
+     */
+    public void setMatrixCache(MatrixCache matrixCache) {
+        this.matrixCache = matrixCache;
+    }
+
+    /**
+     * Solves puzzle files and directories of puzzle files, and writes the results to standard output.
+     *
+     * Usage: {@code java solvers.BatchSolver [-mode first|count|all] [-threads n] [-timeout seconds]
+     * [-format json|csv] [-estimate probes] [-cache directory] [-solutions directory] (puzzle.txt | directory) ...}
+     *
+     * With {@code -solutions} mode {@code all} writes the solutions of every puzzle to a file in the directory, which
+     * {@link SolutionReader} reads.
+     *
+     * With {@code -cache} the matrices of the puzzles are kept in the directory, see {@link MatrixCache}.
+     *
+     * @param args the options and the paths
+     * @throws InterruptedException if the thread is interrupted while waiting for the puzzles
+     */
+    public static void main(String[] args) throws InterruptedException {
+        BatchSolver batchSolver = new BatchSolver(System.out);
+        List<String> paths = new ArrayList<String>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("-mode"))
+                    batchSolver.setMode(Mode.valueOf(args[++i].toUpperCase()));
+                else if (args[i].equals("-threads"))
+                    batchSolver.setThreads(Integer.parseInt(args[++i]));
+                else if (args[i].equals("-timeout"))
+                    batchSolver.setTimeout(Math.round(Double.parseDouble(args[++i]) * 1000));
+                else if (args[i].equals("-format"))
+                    batchSolver.setFormat(Format.valueOf(args[++i].toUpperCase()));
+                else if (args[i].equals("-estimate"))
+                    batchSolver.setEstimateProbes(Integer.parseInt(args[++i]));
+                else if (args[i].equals("-solutions"))
+                    batchSolver.setSolutionsDirectory(new File(args[++i]));
+                else if (args[i].equals("-cache"))
+                    batchSolver.setMatrixCache(new MatrixCache(new File(args[++i])));
+                else
+                    paths.add(args[i]);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid option: " + e.getMessage());
+            System.err.println("Usage: java solvers.BatchSolver [-mode first|count|all] [-threads n] [-timeout seconds] [-format json|csv] [-estimate probes] [-cache directory] [-solutions directory] (puzzle.txt | directory) ...");
+            System.exit(2);
+        }
+        batchSolver.solveAll(puzzleFiles(paths));
+    }
+}
@@ -0,0 +1,392 @@
+package solvers;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Solver which tiles the box with bitmasks, always covering the first free cell.
+ *
+ * Every cell of the box is a bit. The cells are numbered along the short side of the box (row-major when the box is at
+ * least as high as it is wide, column-major otherwise), so the first free cell is always on the frontier of a short
+ * line. For every cell and every piece the masks of all placements whose first cell is that cell are computed
+ * beforehand, so a step of the search is a table lookup and a few {@code long} operations. A box of up to 64 cells fits
+ * in a single {@code long}; larger boxes use an array of words.
+ *
+ * Like the other solvers a solution is reached when no cell is free; copies of a piece are interchangeable, so every
+ * tiling is reported once.
+ *
+ * With {@code pruneDeadRegions} set a placement which leaves a region of free cells that the remaining pieces can't
+ * fill is cut right away, see {@link Regions}. In a single {@code long} the regions are found by growing a bitmask.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ */
+public class BitboardSolver extends Solver {
+    /**
+     * Number of rows of the box
+     */
+    private int rowCount;
+    /**
+     * Number of columns of the box
+     */
+    private int columnCount;
+    /**
+     * Whether the cells are numbered column by column
+     */
+    private boolean columnMajor;
+    /**
+     * Number of {@code long} words of a mask
+     */
+    private int words;
+    /**
+     * The pieces, in the order in which they are tried
+     */
+    private List<Piece> pieces;
+    /**
+     * Number of copies left of every piece
+     */
+    private int[] remaining;
+    /**
+     * The free cells at the start
+     */
+    private long[] initialFree;
+    /**
+     * The placements by id
+     */
+    private Placement[] placements;
+    /**
+     * The masks by placement id, {@code words} longs per placement
+     */
+    private long[] masks;
+    /**
+     * The ids of the placements per cell and piece whose first cell is that cell
+     */
+    private int[][][] candidates;
+    /**
+     * The placement ids chosen so far, by depth
+     */
+    private int[] path;
+    /**
+     * The size of every piece
+     */
+    private int[] sizes;
+    /**
+     * Whether placements which leave a region that can't be filled are cut
+     */
+    private boolean pruneDeadRegions = false;
+    /**
+     * The regions of the box, for the multi-word search
+     */
+    private Regions regions;
+    /**
+     * Number of cells on a line along which the cells are numbered
+     */
+    private int lineLength;
+    /**
+     * The cells which aren't the first (last) of their line, for growing a region in a single {@code long}
+     */
+    private long notLineStart, notLineEnd;
+    private volatile boolean stopSolver = false;
+
+
+    /**
+     * Constructs a new solver for given puzzle.
+     *
+     * @param puzzle the puzzle to be solved
+     */
+    public BitboardSolver(Puzzle puzzle) {
+        super(puzzle);
+        buildMasks();
+    }
+
+    private void buildMasks() {
+        Box box = puzzle.getBox();
+        rowCount = box.getRowCount();
+        columnCount = box.getColumnCount();
+        columnMajor = columnCount > rowCount;
+        int cellCount = rowCount * columnCount;
+        words = (cellCount + 63) / 64;
+        pieces = new ArrayList<Piece>(puzzle.getBagOfPieces().getPieces());
+        remaining = new int[pieces.size()];
+        sizes = new int[pieces.size()];
+        for (int i = 0; i < pieces.size(); ++i) {
+            remaining[i] = puzzle.getRemainingPlacementsOfPiece(pieces.get(i));
+            Iterator<Orientation> orientations = pieces.get(i).orientationIterator();
+            // A piece without orientations has no placements, like in the exact cover matrix
+            sizes[i] = orientations.hasNext() ? orientations.next().size() : 0;
+        }
+
+        regions = new Regions(Regions.gridNeighbours(rowCount, columnCount, columnMajor));
+        lineLength = columnMajor ? rowCount : columnCount;
+        for (int cell = 0; cell < Math.min(cellCount, 64); ++cell) {
+            if (cell % lineLength != 0)
+                notLineStart |= 1L << cell;
+            if (cell % lineLength != lineLength - 1)
+                notLineEnd |= 1L << cell;
+        }
+
+        initialFree = new long[words];
+        for (int i = 0; i < rowCount; ++i)
+            for (int j = 0; j < columnCount; ++j)
+                if (box.getState(i, j) == CellState.FREE)
+                    setBit(initialFree, 0, bitOf(i, j));
+
+        List<Placement> placementList = new ArrayList<Placement>();
+        List<long[]> maskList = new ArrayList<long[]>();
+        candidates = new int[cellCount][pieces.size()][];
+        for (int cell = 0; cell < cellCount; ++cell) {
+            int row = columnMajor ? cell % rowCount : cell / columnCount;
+            int column = columnMajor ? cell / rowCount : cell % columnCount;
+            for (int p = 0; p < pieces.size(); ++p) {
+                Piece piece = pieces.get(p);
+                List<Integer> ids = new ArrayList<Integer>();
+                for (Iterator<Orientation> orientationIterator = piece.orientationIterator(); orientationIterator.hasNext(); ) {
+                    final Orientation orientation = orientationIterator.next();
+                    Position first = firstPosition(orientation);
+                    if (row - first.getRow() < 0 || column - first.getColumn() < 0)
+                        continue;
+                    final Position anchorPosition = new Position(row - first.getRow(), column - first.getColumn());
+                    final Placement placement = new Placement(anchorPosition, orientation, piece);
+                    if (!puzzle.isPlaceFree(placement))
+                        continue;
+                    long[] mask = new long[words];
+                    for (Position pos : orientation)
+                        setBit(mask, 0, bitOf(anchorPosition.getRow() + pos.getRow(), anchorPosition.getColumn() + pos.getColumn()));
+                    ids.add(placementList.size());
+                    placementList.add(placement);
+                    maskList.add(mask);
+                }
+                candidates[cell][p] = new int[ids.size()];
+                for (int i = 0; i < ids.size(); ++i)
+                    candidates[cell][p][i] = ids.get(i);
+            }
+        }
+
+        placements = placementList.toArray(new Placement[placementList.size()]);
+        masks = new long[placements.length * words];
+        for (int id = 0; id < placements.length; ++id)
+            System.arraycopy(maskList.get(id), 0, masks, id * words, words);
+        path = new int[cellCount + 1];
+    }
+
+    /**
+     * Returns the bit of a cell.
+     *
+     * @param row    the row
+     * @param column the column
+     * @return the bit
+     */
+    private int bitOf(int row, int column) {
+        return columnMajor ? column * rowCount + row : row * columnCount + column;
+    }
+
+    /**
+     * Returns the position of the orientation with the lowest bit, which is the cell a placement of it is anchored on.
+     *
+     * @param orientation the orientation
+     * @return the first position
+     */
+    private Position firstPosition(Orientation orientation) {
+        Position first = null;
+        for (Position pos : orientation)
+            if (first == null || bitOf(pos.getRow(), pos.getColumn()) < bitOf(first.getRow(), first.getColumn()))
+                first = pos;
+        return first;
+    }
+
+    private static void setBit(long[] mask, int offset, int bit) {
+        mask[offset + (bit >>> 6)] |= 1L << bit;
+    }
+
+    /**
+     * Finds all solutions of the puzzle, and reports them one by one to the listener.
+     */
+    @Override
+    public void findAll() {
+        puzzle.beginSolverSession();
+        try {
+            if (words == 1) {
+                search(initialFree[0], 0);
+            } else {
+                long[] free = new long[(path.length + 1) * words];
+                System.arraycopy(initialFree, 0, free, 0, words);
+                search(free, 0);
+            }
+        } finally {
+            puzzle.endSolverSession();
+        }
+    }
+
+    /**
+     * Search for boxes which fit in a single {@code long}.
+     *
+     * @param free  the free cells
+     * @param depth the number of placements so far
+     */
+    private void search(long free, int depth) {
+        if (free == 0) {
+            reportSolution(depth);
+            return;
+        }
+
+        int[][] pieceCandidates = candidates[Long.numberOfTrailingZeros(free)];
+        for (int p = 0; p < pieceCandidates.length; ++p) {
+            if (remaining[p] == 0)
+                continue;
+            for (int id : pieceCandidates[p]) {
+                long mask = masks[id];
+                if ((mask & ~free) != 0)
+                    continue;
+                ++nNodesVisited;
+                --remaining[p];
+                long next = free & ~mask;
+                if (pruneDeadRegions && hasDeadRegion(next)) {
+                    ++nNodesPruned;
+                } else {
+                    path[depth] = id;
+                    search(next, depth + 1);
+                }
+                ++remaining[p];
+                if (stopSolver)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Search for boxes with more than 64 cells. The free cells of every depth are stored after each other in
+     * {@code free}, so a step copies them instead of allocating.
+     *
+     * @param free  the free cells per depth, {@code words} longs per depth
+     * @param depth the number of placements so far
+     */
+    private void search(long[] free, int depth) {
+        int offset = depth * words;
+        int cell = -1;
+        for (int w = 0; w < words; ++w) {
+            if (free[offset + w] != 0) {
+                cell = w * 64 + Long.numberOfTrailingZeros(free[offset + w]);
+                break;
+            }
+        }
+        if (cell == -1) {
+            reportSolution(depth);
+            return;
+        }
+
+        int[][] pieceCandidates = candidates[cell];
+        for (int p = 0; p < pieceCandidates.length; ++p) {
+            if (remaining[p] == 0)
+                continue;
+            for (int id : pieceCandidates[p]) {
+                if (!fits(free, offset, id))
+                    continue;
+                ++nNodesVisited;
+                --remaining[p];
+                for (int w = 0; w < words; ++w)
+                    free[offset + words + w] = free[offset + w] & ~masks[id * words + w];
+                if (pruneDeadRegions && hasDeadRegion(free, offset + words)) {
+                    ++nNodesPruned;
+                } else {
+                    path[depth] = id;
+                    search(free, depth + 1);
+                }
+                ++remaining[p];
+                if (stopSolver)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the free cells of a single {@code long} have a region which the remaining pieces can't fill. A
+     * region is grown from its first cell by shifting it along and across the lines until it stops growing.
+     *
+     * @param free the free cells
+     * @return {@code true} if a region is dead; false otherwise
+     */
+    private boolean hasDeadRegion(long free) {
+        boolean reachableKnown = false;
+        for (long rest = free; rest != 0; ) {
+            long region = rest & -rest;
+            long previous;
+            do {
+                previous = region;
+                region |= ((region << 1) & notLineStart) | ((region >>> 1) & notLineEnd)
+                          | (region << lineLength) | (region >>> lineLength);
+                region &= free;
+            } while (region != previous);
+            rest &= ~region;
+
+            if (!reachableKnown) {
+                regions.computeReachable(sizes, remaining);
+                reachableKnown = true;
+            }
+            if (!regions.isReachable(Long.bitCount(region)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the free cells of the multi-word search have a region which the remaining pieces can't fill.
+     *
+     * @param free   the free cells per depth
+     * @param offset the offset of the free cells to check
+     * @return {@code true} if a region is dead; false otherwise
+     */
+    private boolean hasDeadRegion(long[] free, int offset) {
+        for (int cell = 0; cell < regions.free.length; ++cell)
+            regions.free[cell] = (free[offset + (cell >>> 6)] & (1L << cell)) != 0;
+        return regions.hasDeadRegion(sizes, remaining);
+    }
+
+    private boolean fits(long[] free, int offset, int id) {
+        int maskOffset = id * words;
+        for (int w = 0; w < words; ++w)
+            if ((masks[maskOffset + w] & ~free[offset + w]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Reports a solution by applying its placements to the puzzle, notifying the listeners and removing them again. When
+     * the solver is stopped by a listener, the solution stays in the puzzle.
+     *
+     * @param depth the number of placements of the solution
+     */
+    private void reportSolution(int depth) {
+        for (int i = 0; i < depth; ++i)
+            puzzle.addSolverPlacement(placements[path[i]]);
+        puzzle.applySolverPlacements();
+        ++nSolutionsFound;
+        puzzleSolved();
+        if (stopSolver)
+            return;
+        puzzle.revertSolverPlacements();
+        for (int i = 0; i < depth; ++i)
+            puzzle.removeSolverPlacement();
+    }
+
+    public boolean isPruneDeadRegions() {
+        return pruneDeadRegions;
+    }
+
+    /**
+     * Sets whether a placement which leaves a region of free cells that the remaining pieces can't fill is cut. The
+     * number of cut placements is counted in {@link #getNNodesPruned()}.
+     *
+     * @param pruneDeadRegions {@code true} to cut such placements; false otherwise
+     */
+    public void setPruneDeadRegions(boolean pruneDeadRegions) {
+        this.pruneDeadRegions = pruneDeadRegions;
+    }
+
+    @Override
+    public void stop() {
+        stopSolver = true;
+    }
+}
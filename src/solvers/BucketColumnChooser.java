@@ -0,0 +1,92 @@
+package solvers;
+
+/**
+ * Chooses a column with the fewest rows from buckets of columns by size, so the choice doesn't scan all columns.
+ *
+ * Every bucket is a circular list through {@code previous} and {@code next}, indexed by the index of a column, with a
+ * sentinel per size after the columns. Covering a column takes it out of its bucket and every change of a size moves
+ * the column to another bucket, which costs a little on every cover; the choice walks the buckets from size 0 up.
+ * Within a bucket the column which moved there last is chosen.
+ *
+ * @author Robert Leenders
+ * @see MinimumSizeColumnChooser
+ */
+public class BucketColumnChooser implements ColumnChooser {
+    /**
+     * The column of every index
+     */
+    private DLX.Column[] columns;
+    /**
+     * Links of the buckets; the sentinel of the bucket of size {@code s} is {@code columns.length + s}
+     */
+    private int[] previous, next;
+    /**
+     * Lowest size of which the bucket may be non-empty
+     */
+    private int lowest;
+
+
+    public void init(DLX.Column root) {
+        int columnCount = 0;
+        int maxSize = 0;
+        for (DLX.Column i = root.getRight(); i != root; i = i.getRight()) {
+            columnCount = Math.max(columnCount, i.getIndex() + 1);
+            maxSize = Math.max(maxSize, i.getSize());
+        }
+
+        columns = new DLX.Column[columnCount];
+        previous = new int[columnCount + maxSize + 1];
+        next = new int[columnCount + maxSize + 1];
+        for (int sentinel = columnCount; sentinel < next.length; ++sentinel)
+            previous[sentinel] = next[sentinel] = sentinel;
+        lowest = 0;
+        for (DLX.Column i = root.getRight(); i != root; i = i.getRight()) {
+            columns[i.getIndex()] = i;
+            insert(i);
+        }
+    }
+
+    public DLX.Column choose(DLX.Column root) {
+        for (int size = lowest; columns.length + size < next.length; ++size) {
+            int sentinel = columns.length + size;
+            if (next[sentinel] != sentinel) {
+                lowest = size;
+                return columns[next[sentinel]];
+            }
+        }
+        return null;
+    }
+
+    public boolean tracksSizes() {
+        return true;
+    }
+
+    public void columnCovered(DLX.Column column) {
+        remove(column);
+    }
+
+    public void columnUncovered(DLX.Column column) {
+        insert(column);
+    }
+
+    public void sizeChanged(DLX.Column column) {
+        remove(column);
+        insert(column);
+    }
+
+    private void insert(DLX.Column column) {
+        int index = column.getIndex();
+        int sentinel = columns.length + column.getSize();
+        next[index] = next[sentinel];
+        previous[index] = sentinel;
+        previous[next[sentinel]] = index;
+        next[sentinel] = index;
+        lowest = Math.min(lowest, column.getSize());
+    }
+
+    private void remove(DLX.Column column) {
+        int index = column.getIndex();
+        next[previous[index]] = next[index];
+        previous[next[index]] = previous[index];
+    }
+}
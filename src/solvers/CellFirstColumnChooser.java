@@ -0,0 +1,24 @@
+package solvers;
+
+/**
+ * Chooses a column with the fewest rows, preferring a cell column over a piece column on a tie. Branching on a cell
+ * fills the box from the most constrained cell, instead of trying every place of a piece.
+ *
+ * @author Robert Leenders
+ * @see MinimumSizeColumnChooser
+ */
+public class CellFirstColumnChooser extends AbstractColumnChooser {
+
+    public DLX.Column choose(DLX.Column root) {
+        DLX.Column best = null;
+        for (DLX.Column i = root.getRight(); i != root; i = i.getRight()) {
+            if (best == null || i.getSize() < best.getSize()
+                    || (i.getSize() == best.getSize() && best.getPiece() != null && i.getPiece() == null)) {
+                best = i;
+                if (best.getSize() == 0 || (best.getSize() == 1 && best.getPiece() == null))
+                    break;
+            }
+        }
+        return best;
+    }
+}
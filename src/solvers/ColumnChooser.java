@@ -0,0 +1,52 @@
+package solvers;
+
+/**
+ * Strategy which chooses the column {@link DLX} branches on.
+ *
+ * A chooser sees the column headers through {@link DLX.Column}, so it can be written outside this package. A chooser
+ * which keeps its own index of the columns asks for {@link #tracksSizes()}; {@code DLX} then reports every column which
+ * is covered or uncovered and every change of a column size to it. {@link AbstractColumnChooser} leaves out everything
+ * but the choice.
+ *
+ * @author Robert Leenders
+ * @see DLX#setColumnChooser(ColumnChooser)
+ */
+public interface ColumnChooser {
+
+    /**
+     * Chooses the column to branch on.
+     *
+     * @param root the root of the column headers
+     * @return the chosen column, one of the list of {@code root}; {@code null} if there is no column left
+     */
+    DLX.Column choose(DLX.Column root);
+
+    /**
+     * Prepares the chooser for the columns of {@code root}, before the search starts.
+     *
+     * @param root the root of the column headers
+     */
+    void init(DLX.Column root);
+
+    /**
+     * Returns whether the chooser wants to be told about covered columns and size changes.
+     *
+     * @return {@code true} if the changes have to be reported; false otherwise
+     */
+    boolean tracksSizes();
+
+    /**
+     * Column {@code column} is removed from the header list.
+     */
+    void columnCovered(DLX.Column column);
+
+    /**
+     * Column {@code column} is put back in the header list.
+     */
+    void columnUncovered(DLX.Column column);
+
+    /**
+     * The size of column {@code column} has changed.
+     */
+    void sizeChanged(DLX.Column column);
+}
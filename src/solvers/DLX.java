@@ -3,19 +3,30 @@ package solvers;
 import model.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 
 /**
  * Solver which uses the DLX algorithm
  *
+ * Every copy of a piece gets its own column and every placement of that piece one row per copy, so a tiling which uses
+ * several copies of a piece is reported once for every order of its copies.
+ *
+ * The column to branch on is chosen by a {@link ColumnChooser}, by default the first column with the fewest rows.
+ *
  * <a href="http://arxiv.org/abs/cs/0011047">See knuths paper on 'Algorithm X' for more information</a>
  *
  * @author Robert Leenders
  */
 public class DLX extends Solver {
     private Node root;
+    /**
+     * Chooses the column to branch on
+     */
+    private ColumnChooser columnChooser = new MinimumSizeColumnChooser();
+    /**
+     * Whether the column chooser is told about covered columns and size changes
+     */
+    private boolean trackSizes = false;
     private boolean stopSolver = false;
 
 
@@ -26,52 +37,46 @@ public class DLX extends Solver {
      */
     public DLX(Puzzle puzzle) {
         super(puzzle);
-        buildLinks(buildMatrix()); // Load everything up
+        buildLinks(Matrix.build(puzzle)); // Load everything up
     }
 
     void buildLinks(Matrix matrix) {
-        List<Position> columnPositions = matrix.columnPositions;
-        List<Boolean[]> rows = matrix.rows;
+        List<int[]> rows = matrix.rows;
         List<Placement> placementOfRow = matrix.placementOfRow;
-        List<Piece> pieces = matrix.pieces;
         root = new Node();
         root.left = root.right = root;
         Node previous = root;
 
         List<Node> columns = new ArrayList<Node>();
-        for (Position p : columnPositions) {
-            Node column = new Node();
-            column.left = previous;
-            column.right = root;
-            previous.right = column;
-            root.left = column;
-            column.above = column.below = column;
-            columns.add(column);
-            previous = column;
-        }
-
-        for (Piece p : pieces) {
-            for (int i = 0; i < p.getMultiplicity(); ++i) {
+        int[] firstCopy = new int[matrix.columnCount]; // index in columns of the first copy of every matrix column
+        for (int i = 0; i < matrix.columnCount; ++i) {
+            firstCopy[i] = columns.size();
+            for (int copy = 0; copy < matrix.multiplicity[i]; ++copy) {
                 Node column = new Node();
                 column.left = previous;
                 column.right = root;
                 previous.right = column;
                 root.left = column;
                 column.above = column.below = column;
+                column.index = columns.size();
                 columns.add(column);
                 previous = column;
-                column.piece = p;
+                if (i >= matrix.cellColumnCount)
+                    column.piece = matrix.pieces.get(i - matrix.cellColumnCount);
             }
         }
 
         int rowIndex = 0;
-        for (Boolean[] row : rows) {
-            Node first = null;
-            Node last = null;
-            for (int i = 0; i < row.length; ++i) {
-                boolean value = row[i];
-                if (value) {
-                    Node column = columns.get(i);
+        for (int[] row : rows) {
+            Placement placement = placementOfRow.get(rowIndex);
+            int pieceColumn = row[row.length - 1];
+            for (int copy = 0; copy < matrix.multiplicity[pieceColumn]; ++copy) {
+                Node first = null;
+                Node last = null;
+                for (int i : row) {
+                    // The copies of a piece are used from the last column to the first
+                    int columnIndex = i < matrix.cellColumnCount ? firstCopy[i] : firstCopy[i] + matrix.multiplicity[i] - 1 - copy;
+                    Node column = columns.get(columnIndex);
                     Node node = new Node();
                     node.column = column;
                     node.above = column.above;
@@ -89,78 +94,11 @@ public class DLX extends Solver {
                     first.left = node;
                     column.size += 1;
                     last = node;
-                    node.placement = placementOfRow.get(rowIndex);
-                }
-            }
-            ++rowIndex;
-        }
-    }
-
-    Matrix buildMatrix() {
-        List<Boolean[]> rows = new ArrayList<Boolean[]>();
-        List<Position> columnPositions = new ArrayList<Position>();
-        List<Placement> placementOfRow = new ArrayList<Placement>();
-        List<Piece> pieces = new ArrayList<Piece>(puzzle.getBagOfPieces().getPieces());
-        HashMap<Position, Integer> columnsIndexes = new HashMap<Position, Integer>();
-        HashMap<Piece, Integer> piecesIndexes = new HashMap<Piece, Integer>();
-
-        int index = 0;
-        int rowIndex = 0;
-        for (List<Cell> row : puzzle) {
-            int colIndex = 0;
-            for (Cell column : row) {
-                if (column.getState() == CellState.FREE) {
-                    Position p = new Position(rowIndex, colIndex);
-                    columnPositions.add(p);
-                    columnsIndexes.put(p, index);
-                    ++index;
-                }
-                ++colIndex;
-            }
-            ++rowIndex;
-        }
-
-        for (Piece p : pieces) {
-            for (int i = 0; i < p.getMultiplicity(); ++i) {
-                piecesIndexes.put(p, index);
-                ++index;
-            }
-        }
-
-        int maxColumn = index;
-
-        rowIndex = 0;
-        for (List<Cell> row : puzzle) {
-            int colIndex = 0;
-            for (Cell column : row) {
-                for (Piece piece : pieces) {
-                    for (int multiplicity = 0; multiplicity < piece.getMultiplicity(); ++multiplicity) {
-                        for (Iterator<Orientation> orientationIterator = piece.orientationIterator(); orientationIterator.hasNext(); ) {
-                            final Orientation orientation = orientationIterator.next();
-                            if (colIndex - orientation.getFirstOccupiedColumn() < 0)
-                                continue;
-                            final Position anchorPosition = new Position(rowIndex, colIndex - orientation.getFirstOccupiedColumn());
-                            final Placement placement = new Placement(anchorPosition, orientation, piece);
-                            if (puzzle.isPlaceFree(placement)) {
-                                Boolean[] newRow = new Boolean[maxColumn];
-                                for (int i = 0; i < newRow.length; ++i)
-                                    newRow[i] = false;
-                                for (Position pos : orientation) {
-                                    Position absolutePos = new Position(anchorPosition.getRow() + pos.getRow(), anchorPosition.getColumn() + pos.getColumn());
-                                    newRow[columnsIndexes.get(absolutePos)] = true;
-                                }
-                                newRow[piecesIndexes.get(piece) - multiplicity] = true;
-                                rows.add(newRow);
-                                placementOfRow.add(placement);
-                            }
-                        }
-                    }
+                    node.placement = placement;
                 }
-                ++colIndex;
             }
             ++rowIndex;
         }
-        return new Matrix(columnPositions, rows, placementOfRow, pieces);
     }
 
     public void findAll() {
@@ -177,6 +115,7 @@ public class DLX extends Solver {
         cover(column);
 
         for (Node row = column.below; row != column; row = row.below) {
+            ++nNodesVisited;
             puzzle.addPlacement(row.placement);
 
 
@@ -199,23 +138,22 @@ public class DLX extends Solver {
     }
 
     Node chooseColumn() {
-        Node column = new Node(Integer.MAX_VALUE);
-        for (Node i = root.right; i != root; i = i.right) {
-            if (i.size < column.size)
-                column = i;
-        }
-        return column;
+        return (Node) columnChooser.choose(root);
     }
 
     void cover(Node column) {
         column.right.left = column.left;
         column.left.right = column.right;
+        if (trackSizes)
+            columnChooser.columnCovered(column);
 
         for (Node i = column.below; i != column; i = i.below) {
             for (Node j = i.right; i != j; j = j.right) {
                 j.below.above = j.above;
                 j.above.below = j.below;
                 j.column.size -= 1;
+                if (trackSizes)
+                    columnChooser.sizeChanged(j.column);
             }
         }
     }
@@ -226,32 +164,73 @@ public class DLX extends Solver {
                 j.below.above = j;
                 j.above.below = j;
                 j.column.size += 1;
+                if (trackSizes)
+                    columnChooser.sizeChanged(j.column);
             }
         }
         column.right.left = column;
         column.left.right = column;
+        if (trackSizes)
+            columnChooser.columnUncovered(column);
     }
 
-    public void stop() {
-        stopSolver = true;
+    public ColumnChooser getColumnChooser() {
+        return columnChooser;
     }
 
-    class Matrix {
-        List<Boolean[]> rows;
-        List<Position> columnPositions;
-        List<Placement> placementOfRow;
-        List<Piece> pieces;
+    /**
+     * Sets the strategy which chooses the column to branch on. It has to be set before the search starts.
+     *
+     * @param columnChooser the column chooser
+     * @throws IllegalArgumentException if {@code columnChooser} is {@code null}
+     */
+    public void setColumnChooser(ColumnChooser columnChooser) throws IllegalArgumentException {
+        if (columnChooser == null)
+            throw new IllegalArgumentException("columnChooser is null");
+        this.columnChooser = columnChooser;
+        trackSizes = columnChooser.tracksSizes();
+        columnChooser.init(root);
+    }
 
+    @Override
+    public void stop() {
+        stopSolver = true;
+    }
 
-        public Matrix(List<Position> columnPositions, List<Boolean[]> rows, List<Placement> placementOfRow, List<Piece> pieces) {
-            this.columnPositions = columnPositions;
-            this.rows = rows;
-            this.placementOfRow = placementOfRow;
-            this.pieces = pieces;
-        }
+    /**
+     * A column header as a {@link ColumnChooser} sees it
+     */
+    public interface Column {
+        /**
+         * Returns the index of the column, from 0 in the order of the header list before the search.
+         *
+         * @return the index
+         */
+        int getIndex();
+
+        /**
+         * Returns the number of rows of the column which are left.
+         *
+         * @return the size
+         */
+        int getSize();
+
+        /**
+         * Returns the piece of a piece column.
+         *
+         * @return the piece, {@code null} for a cell column
+         */
+        Piece getPiece();
+
+        /**
+         * Returns the next column in the header list.
+         *
+         * @return the next column, the root after the last column
+         */
+        Column getRight();
     }
 
-    protected class Node {
+    protected static class Node implements Column {
         Node left;
         Node right;
         Node above;
@@ -260,6 +239,10 @@ public class DLX extends Solver {
         int size;
         Piece piece;
         Placement placement;
+        /**
+         * Index of a column header
+         */
+        int index;
 
 
         public Node() {
@@ -268,5 +251,21 @@ public class DLX extends Solver {
         public Node(int size) {
             this.size = size;
         }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Piece getPiece() {
+            return piece;
+        }
+
+        public Column getRight() {
+            return right;
+        }
     }
 }
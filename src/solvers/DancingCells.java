@@ -0,0 +1,311 @@
+package solvers;
+
+import model.Placement;
+import model.Puzzle;
+
+import java.util.List;
+
+/**
+ * Solver which uses Knuth's dancing cells: exact cover with sparse sets instead of doubly linked lists.
+ *
+ * Every item (a column of the matrix) keeps the nodes of its options in a section of one {@code set} array, of which
+ * the first {@code size} are active. An option is removed from an item by swapping its node behind the active ones and
+ * decreasing the size, so undoing it only takes increasing the size again: the order within a set doesn't matter, so
+ * the swaps are never undone. The active items are kept the same way in {@code active}. Everything lives in a few
+ * {@code int} arrays which are read mostly in order, which is kinder to the cache than following links.
+ *
+ * The search branches on the item with the fewest options. A piece item with more than one copy left is never branched
+ * on, as that would report a tiling once for every order of the copies; it is used through the cells, and removed with
+ * its options once it is used up. A piece item with one copy left is only branched on when the remaining pieces exactly
+ * fill the free cells, so every copy has to be placed.
+ *
+ * A solution is a tiling of the box with at most the remaining copies of every piece, like in {@link BitboardSolver}.
+ * When the pieces exactly fill the box the solutions are those of {@link ArrayDLX}, though not in the same order. With
+ * copies to spare {@code ArrayDLX} can branch on a piece column which can't get all its copies any more, and misses
+ * the tilings below it.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ * @see Matrix
+ */
+public class DancingCells extends Solver {
+    /**
+     * Number of cell items, they are the items {@code 0..cellCount - 1} and are followed by the piece items
+     */
+    private final int cellCount;
+    /**
+     * The item of every node
+     */
+    private final int[] item;
+    /**
+     * The index in {@code set} of every node
+     */
+    private final int[] location;
+    /**
+     * The first node of every option, followed by the number of nodes
+     */
+    private final int[] optionStart;
+    /**
+     * The option of every node
+     */
+    private final int[] optionOfNode;
+    /**
+     * The nodes of every item, in a section which starts at {@code base[item]}
+     */
+    private final int[] set;
+    private final int[] base;
+    /**
+     * Number of active nodes of every item
+     */
+    private final int[] size;
+    /**
+     * Number of times every item may still be used: 1 for a cell, the remaining copies for a piece
+     */
+    private final int[] remaining;
+    /**
+     * The items, of which the first {@code activeCount} are active
+     */
+    private final int[] active;
+    /**
+     * The index in {@code active} of every item
+     */
+    private final int[] position;
+    private int activeCount;
+    /**
+     * Number of active cell items; the puzzle is solved when it is 0
+     */
+    private int activeCells;
+    /**
+     * The placement of every option
+     */
+    private final Placement[] placementOfRow;
+    /**
+     * Whether the area of the remaining pieces is the number of free cells, so every copy has to be placed
+     */
+    private final boolean exactFit;
+    private volatile boolean stopSolver = false;
+
+
+    /**
+     * Constructs a new solver for given puzzle.
+     *
+     * @param puzzle the puzzle to be solved
+     */
+    public DancingCells(Puzzle puzzle) {
+        super(puzzle);
+        Matrix matrix = Matrix.build(puzzle);
+        List<int[]> rows = matrix.rows;
+        int itemCount = matrix.columnCount;
+        cellCount = matrix.cellColumnCount;
+        placementOfRow = matrix.placementOfRow.toArray(new Placement[rows.size()]);
+
+        int nodeCount = 0;
+        for (int[] row : rows)
+            nodeCount += row.length;
+        item = new int[nodeCount];
+        location = new int[nodeCount];
+        optionOfNode = new int[nodeCount];
+        optionStart = new int[rows.size() + 1];
+        set = new int[nodeCount];
+        base = new int[itemCount + 1];
+        size = new int[itemCount];
+        remaining = matrix.multiplicity.clone();
+        active = new int[itemCount];
+        position = new int[itemCount];
+
+        for (int[] row : rows)
+            for (int i : row)
+                ++size[i];
+        for (int i = 0; i < itemCount; ++i)
+            base[i + 1] = base[i] + size[i];
+
+        int node = 0;
+        int[] filled = new int[itemCount];
+        for (int option = 0; option < rows.size(); ++option) {
+            optionStart[option] = node;
+            for (int i : rows.get(option)) {
+                item[node] = i;
+                optionOfNode[node] = option;
+                location[node] = base[i] + filled[i]++;
+                set[location[node]] = node;
+                ++node;
+            }
+        }
+        optionStart[rows.size()] = node;
+
+        for (int i = 0; i < itemCount; ++i) {
+            active[i] = i;
+            position[i] = i;
+        }
+        activeCount = itemCount;
+        activeCells = cellCount;
+
+        // The area of a piece is that of any of its options; a piece without options can't use up its copies
+        long area = 0;
+        boolean[] counted = new boolean[itemCount];
+        for (int[] row : rows) {
+            int piece = row[row.length - 1];
+            if (!counted[piece]) {
+                counted[piece] = true;
+                area += (long) remaining[piece] * (row.length - 1);
+            }
+        }
+        boolean placeable = true;
+        for (int i = cellCount; i < itemCount; ++i)
+            if (!counted[i] && remaining[i] > 0)
+                placeable = false;
+        exactFit = placeable && area == cellCount;
+    }
+
+    /**
+     * Finds all solutions of the puzzle, and reports them one by one to the listener. The search runs in a solver
+     * session of the puzzle, so its placements are only put in the box at a solution.
+     */
+    @Override
+    public void findAll() {
+        puzzle.beginSolverSession();
+        try {
+            search();
+        } finally {
+            puzzle.endSolverSession();
+        }
+    }
+
+    private void search() {
+        if (stopSolver)
+            return;
+
+        if (activeCells == 0) {
+            ++nSolutionsFound;
+            puzzle.applySolverPlacements();
+            puzzleSolved();
+            if (!stopSolver)
+                puzzle.revertSolverPlacements();
+            return;
+        }
+
+        int c = chooseItem();
+        if (size[c] == 0)
+            return;
+
+        cover(c);
+        for (int k = 0; k < size[c]; ++k) {
+            ++nNodesVisited;
+            int option = optionOfNode[set[base[c] + k]];
+            puzzle.addSolverPlacement(placementOfRow[option]);
+            select(c, option);
+
+            search();
+            if (stopSolver)
+                return;
+
+            unselect(c, option);
+            puzzle.removeSolverPlacement();
+        }
+        uncover(c);
+    }
+
+    /**
+     * Chooses the active item with the fewest options out of the cells, and the pieces with one copy left when every
+     * copy has to be placed, the first one on a tie; the scan stops at an item with no or one option.
+     */
+    private int chooseItem() {
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        for (int k = 0; k < activeCount; ++k) {
+            int i = active[k];
+            if (remaining[i] == 1 && (i < cellCount || exactFit) && size[i] < bestSize) {
+                best = i;
+                bestSize = size[i];
+                if (bestSize <= 1)
+                    break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Uses the other items of {@code option} after {@link #cover(int)} of its item {@code c}: a cell is covered, a piece
+     * is covered when it has no copies left.
+     */
+    private void select(int c, int option) {
+        for (int x = optionStart[option]; x < optionStart[option + 1]; ++x) {
+            int i = item[x];
+            if (i != c && --remaining[i] == 0)
+                cover(i);
+        }
+    }
+
+    /**
+     * Undoes {@link #select(int, int)}.
+     */
+    private void unselect(int c, int option) {
+        for (int x = optionStart[option + 1] - 1; x >= optionStart[option]; --x) {
+            int i = item[x];
+            if (i != c && remaining[i]++ == 0)
+                uncover(i);
+        }
+    }
+
+    /**
+     * Deactivates item {@code i} and removes its active options from the other active items. The nodes of {@code i}
+     * are left as they are, so {@link #uncover(int)} sees the same options.
+     */
+    private void cover(int i) {
+        int last = active[--activeCount];
+        int p = position[i];
+        active[p] = last;
+        position[last] = p;
+        active[activeCount] = i;
+        position[i] = activeCount;
+        if (i < cellCount)
+            --activeCells;
+
+        for (int k = base[i]; k < base[i] + size[i]; ++k) {
+            int x = set[k];
+            int option = optionOfNode[x];
+            for (int y = optionStart[option]; y < optionStart[option + 1]; ++y)
+                if (y != x && position[item[y]] < activeCount)
+                    remove(y);
+        }
+    }
+
+    /**
+     * Undoes {@link #cover(int)}. Items have to be uncovered in the reverse order of covering them.
+     */
+    private void uncover(int i) {
+        for (int k = base[i]; k < base[i] + size[i]; ++k) {
+            int x = set[k];
+            int option = optionOfNode[x];
+            for (int y = optionStart[option]; y < optionStart[option + 1]; ++y)
+                if (y != x && position[item[y]] < activeCount)
+                    ++size[item[y]];
+        }
+
+        ++activeCount;
+        if (i < cellCount)
+            ++activeCells;
+    }
+
+    /**
+     * Swaps node {@code y} behind the active nodes of its item.
+     */
+    private void remove(int y) {
+        int i = item[y];
+        int lastLocation = base[i] + --size[i];
+        int last = set[lastLocation];
+        int l = location[y];
+        set[l] = last;
+        location[last] = l;
+        set[lastLocation] = y;
+        location[y] = lastLocation;
+    }
+
+    /**
+     * Stops the search after the current placement.
+     */
+    @Override
+    public void stop() {
+        stopSolver = true;
+    }
+}
@@ -0,0 +1,472 @@
+package solvers;
+
+import model.IllegalOperationException;
+import model.Placement;
+import model.Puzzle;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Solver which runs the DLX algorithm without recursion, on an explicit stack of chosen columns and rows, so the search
+ * can be paused, resumed and run a step at a time.
+ *
+ * A step makes the next placement of the search, undoing as many placements as needed first; a solution is reported in
+ * the step which completes it. {@link #step()} runs a single step on the calling thread. {@link #findAll()} runs the
+ * steps until the search is done; while it runs another thread can {@link #pause()} it between two steps, let it make
+ * a {@link #singleStep()} and {@link #resume()} it. The state of the search stays on the stack, so a paused search
+ * loses nothing and the depth of the search isn't limited by the thread's stack.
+ *
+ * The columns are chosen and the rows tried like in {@link ArrayDLX}, so the same solutions are found in the same
+ * order. Like {@code ArrayDLX} the search runs in a solver session of the puzzle unless {@code tracePlacements} is set.
+ *
+ * The stack can be written to a checkpoint file, periodically by {@link #findAll()} when a {@code checkpointFile} is
+ * set. A checkpoint holds the counts and the row of every level, see {@link #writeCheckpoint(File)}; {@link
+ * #resumeFrom(File)} replays those rows on a new solver for the same puzzle and continues after the last reported
+ * solution.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ */
+public class IterativeDLX extends Solver {
+    /**
+     * The dancing links
+     */
+    private Links links;
+    /**
+     * The placement of every row
+     */
+    private Placement[] placementOfRow;
+    /**
+     * The chosen column of every level of the stack
+     */
+    private int[] columns;
+    /**
+     * The node of the chosen row of every level of the stack, the column header when no row is chosen yet
+     */
+    private int[] nodes;
+    /**
+     * Number of levels on the stack
+     */
+    private int depth = 0;
+    /**
+     * Whether every placement of the search is added to the puzzle, instead of only the solutions
+     */
+    private boolean tracePlacements = false;
+    private boolean started = false;
+    private boolean finished = false;
+    /**
+     * Whether the whole search tree has been visited, as opposed to a stopped search
+     */
+    private boolean exhausted = false;
+    /**
+     * Lock on which a paused {@link #findAll()} waits
+     */
+    private final Object pauseLock = new Object();
+    private boolean paused = false;
+    /**
+     * Number of steps a paused {@link #findAll()} may still make
+     */
+    private int stepsAllowed = 0;
+    /**
+     * Hash of the rows of the matrix, to recognize the checkpoints of this puzzle
+     */
+    private int matrixHash;
+    /**
+     * File to which {@link #findAll()} writes its checkpoints, {@code null} for none
+     */
+    private File checkpointFile;
+    /**
+     * Milliseconds between two checkpoints
+     */
+    private long checkpointInterval;
+    /**
+     * Time after which the next checkpoint is written
+     */
+    private long nextCheckpoint;
+    private volatile boolean stopSolver = false;
+    /**
+     * Marks a checkpoint file, "PSCK"
+     */
+    private static final int CHECKPOINT_MAGIC = 0x5053434B;
+    private static final int CHECKPOINT_VERSION = 1;
+    /**
+     * Number of steps between two looks at the clock
+     */
+    private static final int CHECKPOINT_CHECK_STEPS = 1024;
+
+
+    /**
+     * Constructs a new solver for given puzzle.
+     *
+     * @param puzzle the puzzle to be solved
+     */
+    public IterativeDLX(Puzzle puzzle) {
+        super(puzzle);
+        Matrix matrix = Matrix.build(puzzle);
+        links = new Links(matrix);
+        placementOfRow = matrix.placementOfRow.toArray(new Placement[matrix.rows.size()]);
+        columns = new int[16];
+        nodes = new int[16];
+        matrixHash = matrix.hash();
+    }
+
+    /**
+     * Finds all solutions of the puzzle, and reports them one by one to the listener. Returns when the search is done
+     * or stopped; while it is paused it waits.
+     */
+    @Override
+    public void findAll() {
+        nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+        long steps = 0;
+        do {
+            waitUntilAllowed();
+            if (checkpointFile != null && ++steps % CHECKPOINT_CHECK_STEPS == 0
+                    && System.currentTimeMillis() >= nextCheckpoint) {
+                writeCheckpointOrFail(checkpointFile);
+                nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+            }
+        } while (step());
+        if (checkpointFile != null)
+            writeCheckpointOrFail(checkpointFile);
+    }
+
+    private void writeCheckpointOrFail(File file) {
+        try {
+            writeCheckpoint(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write checkpoint " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the state of the search to a file, between two steps. The file holds a header, the number of solutions and
+     * visited nodes, whether the whole search tree has been visited and the row index of every level of the stack (-1
+     * for a level without a chosen row). It is written next to {@code file} first and then moved over it, so a crash
+     * never leaves a half written checkpoint.
+     *
+     * @param file the checkpoint file
+     * @throws IOException if the file can't be written
+     */
+    public void writeCheckpoint(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+        try {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeByte(CHECKPOINT_VERSION);
+            out.writeInt(matrixHash);
+            out.writeLong(nSolutionsFound);
+            out.writeLong(nNodesVisited);
+            out.writeBoolean(exhausted);
+            out.writeInt(depth);
+            for (int level = 0; level < depth; ++level)
+                out.writeInt(nodes[level] == columns[level] ? -1 : links.row[nodes[level]]);
+        } finally {
+            out.close();
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the state of a checkpoint and continues the search with {@link #findAll()}, on the calling thread; it
+     * blocks until the search is done or stopped. The solutions reported before the checkpoint are not reported again,
+     * but they are counted.
+     *
+     * @param file the checkpoint file, written by a solver for the same puzzle
+     * @throws IOException               if the file can't be read or isn't a checkpoint of this puzzle
+     * @throws IllegalOperationException if the search has already started
+     */
+    public void resumeFrom(File file) throws IOException, IllegalOperationException {
+        if (started)
+            throw new IllegalOperationException("The search has already started.");
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readByte() != CHECKPOINT_VERSION)
+                throw new IOException("Not a checkpoint file: " + file);
+            if (in.readInt() != matrixHash)
+                throw new IOException("The checkpoint is of another puzzle: " + file);
+            nSolutionsFound = (int) in.readLong();
+            nNodesVisited = in.readLong();
+            boolean checkpointExhausted = in.readBoolean();
+            int levels = in.readInt();
+
+            if (checkpointExhausted) {
+                exhausted = true;
+                finished = true;
+                return;
+            }
+            if (levels > 0) {
+                // else the checkpoint was written before the first step, which starts the search as usual
+                started = true;
+                if (!tracePlacements)
+                    puzzle.beginSolverSession();
+                for (int level = 0; level < levels; ++level)
+                    replayLevel(in.readInt());
+            }
+        } finally {
+            in.close();
+        }
+        findAll();
+    }
+
+    /**
+     * Puts a new level on the stack and chooses the given row in it, after skipping the rows before it as the search
+     * did.
+     *
+     * @param rowIndex the row, -1 to leave the level without a chosen row
+     * @throws IOException if the column has no such row
+     */
+    private void replayLevel(int rowIndex) throws IOException {
+        push();
+        if (rowIndex == -1)
+            return;
+
+        int c = columns[depth - 1];
+        int r = links.down[c];
+        for (; r != c && links.row[r] != rowIndex; r = links.down[r])
+            links.skipRow(c, r);
+        if (r == c)
+            throw new IOException("The checkpoint doesn't match the search");
+        nodes[depth - 1] = r;
+        addPlacement(placementOfRow[rowIndex]);
+        links.selectRow(c, r);
+    }
+
+    /**
+     * Waits while the search is paused and no single step is allowed. An interrupt stops the search.
+     */
+    private void waitUntilAllowed() {
+        synchronized (pauseLock) {
+            while (paused && stepsAllowed == 0 && !stopSolver) {
+                try {
+                    pauseLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopSolver = true;
+                }
+            }
+            if (stepsAllowed > 0)
+                --stepsAllowed;
+        }
+    }
+
+    /**
+     * Makes the next placement of the search, after undoing as many placements as needed. A solution completed by the
+     * placement is reported.
+     *
+     * @return {@code true} if the search can continue; false if it is done or stopped
+     */
+    public boolean step() {
+        if (finished)
+            return false;
+        if (stopSolver) {
+            finish();
+            return false;
+        }
+
+        if (!started) {
+            started = true;
+            if (!tracePlacements)
+                puzzle.beginSolverSession();
+            if (links.isSolved()) {
+                reportSolution();
+                exhausted = true;
+                finish();
+                return false;
+            }
+            push();
+        }
+
+        while (depth > 0) {
+            int top = depth - 1;
+            int c = columns[top];
+            int r = nodes[top];
+            if (r != c) {
+                links.unselectRow(c, r);
+                removePlacement(placementOfRow[links.row[r]]);
+                r = links.down[r];
+            } else {
+                r = links.down[c];
+            }
+
+            if (r == c) {
+                links.endColumn(c);
+                --depth;
+                continue;
+            }
+
+            nodes[top] = r;
+            ++nNodesVisited;
+            addPlacement(placementOfRow[links.row[r]]);
+            links.selectRow(c, r);
+            if (links.isSolved()) {
+                reportSolution();
+                if (stopSolver) {
+                    finish();
+                    return false;
+                }
+            } else {
+                push();
+            }
+            return true;
+        }
+
+        exhausted = true;
+        finish();
+        return false;
+    }
+
+    /**
+     * Chooses a column and puts it on the stack as a new level without a chosen row.
+     */
+    private void push() {
+        if (depth == columns.length) {
+            columns = Arrays.copyOf(columns, 2 * depth);
+            nodes = Arrays.copyOf(nodes, 2 * depth);
+        }
+        int c = links.chooseColumn();
+        links.beginColumn(c);
+        columns[depth] = c;
+        nodes[depth] = c;
+        ++depth;
+    }
+
+    private void addPlacement(Placement placement) {
+        if (tracePlacements)
+            puzzle.addPlacement(placement);
+        else
+            puzzle.addSolverPlacement(placement);
+    }
+
+    private void removePlacement(Placement placement) {
+        if (tracePlacements)
+            puzzle.removePlacement(placement);
+        else
+            puzzle.removeSolverPlacement();
+    }
+
+    private void reportSolution() {
+        ++nSolutionsFound;
+        if (tracePlacements) {
+            puzzleSolved();
+        } else {
+            puzzle.applySolverPlacements();
+            puzzleSolved();
+            if (!stopSolver)
+                puzzle.revertSolverPlacements();
+        }
+    }
+
+    /**
+     * Ends the search. A stopped search leaves its placements in the puzzle.
+     */
+    private void finish() {
+        finished = true;
+        if (started && !tracePlacements)
+            puzzle.endSolverSession();
+    }
+
+    /**
+     * Pauses a running {@link #findAll()} after its current step.
+     */
+    public void pause() {
+        synchronized (pauseLock) {
+            paused = true;
+        }
+    }
+
+    /**
+     * Resumes a paused {@link #findAll()}.
+     */
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * Lets a paused {@link #findAll()} make one more step.
+     */
+    public void singleStep() {
+        synchronized (pauseLock) {
+            ++stepsAllowed;
+            pauseLock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        synchronized (pauseLock) {
+            return paused;
+        }
+    }
+
+    /**
+     * Returns whether the search is done or stopped.
+     *
+     * @return {@code true} if no more steps are made; false otherwise
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the number of placements of the current state of the search.
+     *
+     * @return the depth of the search
+     */
+    public int getDepth() {
+        return depth > 0 && nodes[depth - 1] == columns[depth - 1] ? depth - 1 : depth;
+    }
+
+    public boolean isTracePlacements() {
+        return tracePlacements;
+    }
+
+    /**
+     * Sets whether every placement of the search is added to the puzzle, so box listeners can follow the search. It has
+     * to be set before the first step.
+     *
+     * @param tracePlacements {@code true} to add every placement; false to only add the solutions
+     * @throws IllegalOperationException if the search has started
+     */
+    public void setTracePlacements(boolean tracePlacements) throws IllegalOperationException {
+        if (started)
+            throw new IllegalOperationException("The search has already started.");
+        this.tracePlacements = tracePlacements;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Sets the file to which {@link #findAll()} writes a checkpoint every {@code interval} milliseconds, and once more
+     * when the search ends.
+     *
+     * @param checkpointFile the checkpoint file, {@code null} for no checkpoints
+     * @param interval       milliseconds between two checkpoints
+     * @throws IllegalArgumentException if {@code interval < 0}
+     */
+    public void setCheckpointFile(File checkpointFile, long interval) throws IllegalArgumentException {
+        if (interval < 0)
+            throw new IllegalArgumentException("interval is below 0; interval:" + interval);
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Stops the search. A paused {@link #findAll()} returns right away.
+     */
+    @Override
+    public void stop() {
+        stopSolver = true;
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package solvers;
+
+import java.util.List;
+
+/**
+ * The dancing links of an exact cover matrix, stored in parallel {@code int} arrays.
+ *
+ * A column can have a multiplicity, the number of rows which must cover it (Knuth's Algorithm M). Such a column stays
+ * in the header list until its last row is chosen, and the rows chosen so far are hidden from all their columns. When
+ * the search branches on a column with a multiplicity above one, every row which has been tried is hidden for its later
+ * siblings, so every combination of rows is visited once instead of once per order.
+ *
+ * Index 0 is the root, indexes {@code 1..columnCount} are the column headers and the rest are the nodes of the rows.
+ * The headers and nodes are laid out in the same order as the {@code Node} graph of {@link DLX}, so a search over these
+ * links visits the rows in the same order. The arrays can be copied, so every thread can search its own copy.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ */
+class Links {
+    /**
+     * Links to the left, right, up and down neighbour of every node
+     */
+    int[] left, right, up, down;
+    /**
+     * The column header of every node
+     */
+    int[] column;
+    /**
+     * The row (index in the matrix) of every node, -1 for the root and the headers
+     */
+    int[] row;
+    /**
+     * Number of nodes in every column, indexed by column header
+     */
+    int[] size;
+    /**
+     * Number of rows which still have to cover every column, indexed by column header; 0 once a column is covered
+     */
+    int[] remaining;
+    /**
+     * Stack of the rows hidden while branching on a column with a multiplicity, separated by -1 per branch
+     */
+    private int[] hidden;
+    /**
+     * Number of elements on {@code hidden}
+     */
+    private int hiddenSize = 0;
+    /**
+     * Number of cell columns, they are the headers {@code 1..cellColumnCount}
+     */
+    int cellColumnCount;
+    /**
+     * Number of cell columns which are currently covered
+     */
+    int coveredCellColumns = 0;
+
+
+    /**
+     * Constructs the links of the given matrix, with all columns uncovered.
+     *
+     * @param matrix the exact cover matrix
+     */
+    Links(Matrix matrix) {
+        List<int[]> rows = matrix.rows;
+        int columnCount = matrix.columnCount;
+        int nodeCount = columnCount + 1;
+        for (int[] r : rows)
+            nodeCount += r.length;
+
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        column = new int[nodeCount];
+        row = new int[nodeCount];
+        size = new int[columnCount + 1];
+        remaining = new int[columnCount + 1];
+        hidden = new int[16];
+        cellColumnCount = matrix.cellColumnCount;
+
+        for (int c = 0; c <= columnCount; ++c) {
+            left[c] = c == 0 ? columnCount : c - 1;
+            right[c] = c == columnCount ? 0 : c + 1;
+            up[c] = down[c] = c;
+            column[c] = c;
+            row[c] = -1;
+            if (c > 0)
+                remaining[c] = matrix.multiplicity[c - 1];
+        }
+
+        int node = columnCount + 1;
+        for (int rowIndex = 0; rowIndex < rows.size(); ++rowIndex) {
+            int first = node;
+            for (int i : rows.get(rowIndex)) {
+                int c = i + 1;
+                column[node] = c;
+                row[node] = rowIndex;
+                up[node] = up[c];
+                down[node] = c;
+                down[up[c]] = node;
+                up[c] = node;
+                left[node] = node == first ? node : node - 1;
+                right[node] = first;
+                right[left[node]] = node;
+                left[first] = node;
+                ++size[c];
+                ++node;
+            }
+        }
+
+        // a piece without copies left is already placed
+        for (int c = 1; c <= columnCount; ++c)
+            if (remaining[c] == 0)
+                cover(c);
+    }
+
+    /**
+     * Constructs a copy of the given links, in their current state.
+     *
+     * @param other the links to copy
+     */
+    Links(Links other) {
+        left = other.left.clone();
+        right = other.right.clone();
+        up = other.up.clone();
+        down = other.down.clone();
+        column = other.column;   // never modified, so it can be shared
+        row = other.row;         // never modified, so it can be shared
+        size = other.size.clone();
+        remaining = other.remaining.clone();
+        hidden = other.hidden.clone();
+        hiddenSize = other.hiddenSize;
+        cellColumnCount = other.cellColumnCount;
+        coveredCellColumns = other.coveredCellColumns;
+    }
+
+    /**
+     * Returns whether every cell column is covered, which means the box is filled.
+     *
+     * @return {@code true} if all cell columns are covered; false otherwise
+     */
+    boolean isSolved() {
+        return coveredCellColumns == cellColumnCount;
+    }
+
+    /**
+     * Returns whether rows are hidden because they were tried in a column with a multiplicity. The active columns then
+     * don't tell the whole state, as the hidden rows are left out.
+     *
+     * @return {@code true} if rows are hidden; false otherwise
+     */
+    boolean hasHiddenRows() {
+        for (int i = 0; i < hiddenSize; ++i)
+            if (hidden[i] != -1)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns a hash of the active columns and the number of rows they still need, for the given seed. Hashes with
+     * different seeds are independent.
+     *
+     * @param seed the seed
+     * @return the hash
+     */
+    long hashActiveColumns(long seed) {
+        long result = 0;
+        for (int c = right[0]; c != 0; c = right[c]) {
+            long z = seed + ((long) c << 32 | remaining[c]) * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            result ^= z ^ (z >>> 31);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the active columns with the number of rows they still need, exactly: a bitset of the active column
+     * headers, followed by {@code c << 32 | remaining[c]} for every active column {@code c} which needs more than one
+     * row.
+     *
+     * @return the key of the active columns
+     */
+    long[] activeColumnKey() {
+        int extra = 0;
+        for (int c = right[0]; c != 0; c = right[c])
+            if (remaining[c] > 1)
+                ++extra;
+        int words = remaining.length / 64 + 1;
+        long[] result = new long[words + extra];
+        for (int c = right[0]; c != 0; c = right[c]) {
+            result[c >>> 6] |= 1L << c;
+            if (remaining[c] > 1)
+                result[words++] = (long) c << 32 | remaining[c];
+        }
+        return result;
+    }
+
+    /**
+     * Chooses the column with the fewest branches, the first one on a tie. A column which still needs {@code k} rows out
+     * of {@code n} counts as {@code n - k + 1} branches, which is just its size when {@code k = 1}. Like {@link
+     * MinimumSizeColumnChooser} the scan stops at a column with no or one branch.
+     *
+     * @return the column header
+     */
+    int chooseColumn() {
+        int best = 0;
+        int bestSize = Integer.MAX_VALUE;
+        for (int c = right[0]; c != 0; c = right[c]) {
+            int branches = size[c] - remaining[c] + 1;
+            if (branches < bestSize) {
+                best = c;
+                bestSize = branches;
+                if (bestSize <= 1)
+                    break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Starts branching on column {@code c}: a column which needs one more row is covered, a column with a multiplicity
+     * starts a new group of hidden siblings.
+     *
+     * @param c the chosen column
+     */
+    void beginColumn(int c) {
+        if (remaining[c] == 1) {
+            remaining[c] = 0;
+            cover(c);
+        } else {
+            push(-1);
+        }
+    }
+
+    /**
+     * Undoes {@link #beginColumn(int)}, which includes unhiding the siblings which have been tried.
+     *
+     * @param c the chosen column
+     */
+    void endColumn(int c) {
+        if (remaining[c] == 0) {
+            uncover(c);
+            remaining[c] = 1;
+        } else {
+            for (int r = hidden[--hiddenSize]; r != -1; r = hidden[--hiddenSize])
+                unhideRow(r);
+        }
+    }
+
+    /**
+     * Chooses the row of node {@code r} in column {@code c}, after {@link #beginColumn(int)}.
+     *
+     * @param c the chosen column
+     * @param r a node of the chosen row in column {@code c}
+     */
+    void selectRow(int c, int r) {
+        if (remaining[c] == 0) {
+            // c is covered, which already hid the row from its other columns
+            for (int j = right[r]; j != r; j = right[j])
+                use(column[j]);
+        } else {
+            hideRow(r);
+            int j = r;
+            do {
+                use(column[j]);
+                j = right[j];
+            } while (j != r);
+        }
+    }
+
+    /**
+     * Undoes {@link #selectRow(int, int)}. When {@code c} has a multiplicity, the row stays hidden for the rest of the
+     * branch, so it isn't chosen again by a sibling.
+     *
+     * @param c the chosen column
+     * @param r a node of the chosen row in column {@code c}
+     */
+    void unselectRow(int c, int r) {
+        if (remaining[c] == 0) {
+            for (int j = left[r]; j != r; j = left[j])
+                release(column[j]);
+        } else {
+            int j = r;
+            do {
+                j = left[j];
+                release(column[j]);
+            } while (j != r);
+            push(r);
+        }
+    }
+
+    /**
+     * Skips the row of node {@code r} in column {@code c} without trying it, as {@link #unselectRow(int, int)} would
+     * leave it. Only needed to replay a branch in which earlier siblings have been tried.
+     *
+     * @param c the chosen column
+     * @param r a node of the skipped row in column {@code c}
+     */
+    void skipRow(int c, int r) {
+        if (remaining[c] != 0) {
+            hideRow(r);
+            push(r);
+        }
+    }
+
+    /**
+     * One more row covers column {@code c}; it is covered when it needs no more rows.
+     */
+    private void use(int c) {
+        if (--remaining[c] == 0)
+            cover(c);
+    }
+
+    /**
+     * Undoes {@link #use(int)}.
+     */
+    private void release(int c) {
+        if (remaining[c]++ == 0)
+            uncover(c);
+    }
+
+    /**
+     * Removes the row of node {@code r} from all its columns.
+     */
+    private void hideRow(int r) {
+        int j = r;
+        do {
+            down[up[j]] = down[j];
+            up[down[j]] = up[j];
+            --size[column[j]];
+            j = right[j];
+        } while (j != r);
+    }
+
+    /**
+     * Undoes {@link #hideRow(int)}.
+     */
+    private void unhideRow(int r) {
+        int j = r;
+        do {
+            j = left[j];
+            down[up[j]] = j;
+            up[down[j]] = j;
+            ++size[column[j]];
+        } while (j != r);
+    }
+
+    private void push(int r) {
+        if (hiddenSize == hidden.length)
+            hidden = java.util.Arrays.copyOf(hidden, 2 * hidden.length);
+        hidden[hiddenSize++] = r;
+    }
+
+    void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        if (c <= cellColumnCount)
+            ++coveredCellColumns;
+
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                --size[column[j]];
+            }
+        }
+    }
+
+    void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                down[up[j]] = j;
+                up[down[j]] = j;
+                ++size[column[j]];
+            }
+        }
+        if (c <= cellColumnCount)
+            --coveredCellColumns;
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
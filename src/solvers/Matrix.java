@@ -0,0 +1,187 @@
+package solvers;
+
+import model.*;
+
+import java.util.*;
+
+/**
+ * The exact cover matrix of a puzzle, shared by the DLX based solvers.
+ *
+ * The first {@code cellColumnCount} columns are the free cells of the box (in row-major order), followed by one column
+ * per piece. Each row is a possible placement, stored sparse as the ascending indexes of its columns. A piece column has
+ * to be covered as many times as the multiplicity of its piece, so a placement of a piece with several copies is a
+ * single row instead of one identical row per copy.
+ *
+ * The matrix is built from the current state of the puzzle: cells which are already covered have no column and a piece
+ * column only has to be covered as many times as the piece has copies left, so a solver completes the placements which
+ * are in the box. A piece without copies left has no rows.
+ *
+ * @author Robert Leenders
+ * @see DLX
+ */
+class Matrix {
+    /**
+     * The position of every cell column
+     */
+    List<Position> columnPositions;
+    /**
+     * The rows, as ascending column indexes
+     */
+    List<int[]> rows;
+    /**
+     * The placement of every row
+     */
+    List<Placement> placementOfRow;
+    /**
+     * The pieces, in the order of their columns
+     */
+    List<Piece> pieces;
+    /**
+     * The number of times every column has to be covered; 1 for a cell column, the remaining copies for a piece column
+     */
+    int[] multiplicity;
+    /**
+     * Number of cell columns, the piece columns follow them
+     */
+    int cellColumnCount;
+    /**
+     * Total number of columns
+     */
+    int columnCount;
+
+
+    public Matrix(List<Position> columnPositions, List<int[]> rows, List<Placement> placementOfRow, List<Piece> pieces) {
+        this(columnPositions, rows, placementOfRow, pieces, multiplicities(pieces));
+    }
+
+    /**
+     * Constructs a matrix in which every piece has to be placed the given number of times.
+     *
+     * @param pieceMultiplicity the number of times every piece has to be placed, in the order of {@code pieces}
+     */
+    public Matrix(List<Position> columnPositions, List<int[]> rows, List<Placement> placementOfRow, List<Piece> pieces,
+                  int[] pieceMultiplicity) {
+        this.columnPositions = columnPositions;
+        this.rows = rows;
+        this.placementOfRow = placementOfRow;
+        this.pieces = pieces;
+        this.cellColumnCount = columnPositions.size();
+        this.columnCount = cellColumnCount + pieces.size();
+        multiplicity = new int[columnCount];
+        Arrays.fill(multiplicity, 0, cellColumnCount, 1);
+        System.arraycopy(pieceMultiplicity, 0, multiplicity, cellColumnCount, pieces.size());
+    }
+
+    private static int[] multiplicities(List<Piece> pieces) {
+        int[] result = new int[pieces.size()];
+        for (int i = 0; i < pieces.size(); ++i)
+            result[i] = pieces.get(i).getMultiplicity();
+        return result;
+    }
+
+    /**
+     * Returns a hash of the rows, to check that a file written for a matrix is read for the same matrix.
+     *
+     * @return the hash
+     */
+    int hash() {
+        int result = rows.size();
+        for (int[] row : rows)
+            result = 31 * result + Arrays.hashCode(row);
+        return result;
+    }
+
+    /**
+     * Returns the number of rows which duplicate orientations would have added: every dropped duplicate of an
+     * orientation would have been another copy of its rows.
+     *
+     * @return the number of rows saved by dropping duplicate orientations
+     * @see Piece#getDuplicateCount(Orientation)
+     */
+    int duplicateRowCount() {
+        int result = 0;
+        for (Placement placement : placementOfRow)
+            result += placement.getPiece().getDuplicateCount(placement.getOrientation());
+        return result;
+    }
+
+    /**
+     * Returns the number of times every piece has to be placed, in the order of {@code pieces}.
+     *
+     * @return the piece multiplicities
+     */
+    int[] pieceMultiplicities() {
+        return Arrays.copyOfRange(multiplicity, cellColumnCount, columnCount);
+    }
+
+    /**
+     * Builds the matrix for the free cells of the puzzle.
+     *
+     * @param puzzle the puzzle
+     * @return the exact cover matrix
+     */
+    static Matrix build(Puzzle puzzle) {
+        List<int[]> rows = new ArrayList<int[]>();
+        List<Position> columnPositions = new ArrayList<Position>();
+        List<Placement> placementOfRow = new ArrayList<Placement>();
+        List<Piece> pieces = new ArrayList<Piece>(puzzle.getBagOfPieces().getPieces());
+        HashMap<Position, Integer> columnsIndexes = new HashMap<Position, Integer>();
+        HashMap<Piece, Integer> piecesIndexes = new HashMap<Piece, Integer>();
+
+        int index = 0;
+        int rowIndex = 0;
+        for (List<Cell> row : puzzle) {
+            int colIndex = 0;
+            for (Cell column : row) {
+                if (column.getState() == CellState.FREE) {
+                    Position p = new Position(rowIndex, colIndex);
+                    columnPositions.add(p);
+                    columnsIndexes.put(p, index);
+                    ++index;
+                }
+                ++colIndex;
+            }
+            ++rowIndex;
+        }
+
+        int[] pieceRemaining = new int[pieces.size()];
+        for (Piece p : pieces) {
+            pieceRemaining[index - columnPositions.size()] = puzzle.getRemainingPlacementsOfPiece(p);
+            piecesIndexes.put(p, index);
+            ++index;
+        }
+
+        rowIndex = 0;
+        for (List<Cell> row : puzzle) {
+            int colIndex = 0;
+            for (Cell column : row) {
+                for (Piece piece : pieces) {
+                    if (pieceRemaining[piecesIndexes.get(piece) - columnPositions.size()] == 0)
+                        continue;
+                    for (Iterator<Orientation> orientationIterator = piece.orientationIterator(); orientationIterator.hasNext(); ) {
+                        final Orientation orientation = orientationIterator.next();
+                        if (colIndex - orientation.getFirstOccupiedColumn() < 0)
+                            continue;
+                        final Position anchorPosition = new Position(rowIndex, colIndex - orientation.getFirstOccupiedColumn());
+                        final Placement placement = new Placement(anchorPosition, orientation, piece);
+                        if (puzzle.isPlaceFree(placement)) {
+                            int[] newRow = new int[orientation.size() + 1];
+                            int i = 0;
+                            for (Position pos : orientation) {
+                                Position absolutePos = new Position(anchorPosition.getRow() + pos.getRow(), anchorPosition.getColumn() + pos.getColumn());
+                                newRow[i++] = columnsIndexes.get(absolutePos);
+                            }
+                            newRow[i] = piecesIndexes.get(piece);
+                            Arrays.sort(newRow);
+                            rows.add(newRow);
+                            placementOfRow.add(placement);
+                        }
+                    }
+                }
+                ++colIndex;
+            }
+            ++rowIndex;
+        }
+        return new Matrix(columnPositions, rows, placementOfRow, pieces, pieceRemaining);
+    }
+}
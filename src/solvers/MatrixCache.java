@@ -0,0 +1,372 @@
+package solvers;
+
+import model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Cache of built exact cover matrices in a directory, so solving the same puzzle again skips building its matrix.
+ *
+ * A matrix is stored under a 64-bit key of everything it is built from: the free cells of the box, and the name, color,
+ * remaining copies and orientations of every piece, in the order in which {@link Matrix#build(Puzzle)} visits them.
+ * The file holds the positions of the cell columns, the remaining copies of every piece and for every row its columns
+ * with the piece, orientation and anchor of its placement, as indexes into the pieces of the puzzle, and ends with a
+ * CRC-32 checksum of everything after the header. A file is read whole through its channel and closed at once; only the
+ * rows and their placements are made, none of the lookups of building the matrix. Its checksum, its number of cell
+ * columns, the columns of its rows and its anchors are checked against the puzzle, so a damaged file isn't used.
+ *
+ * A file is written to a temporary file first and then renamed, so several threads or processes can share a
+ * directory. A file which can't be read or doesn't match the puzzle is treated as missing, and a file which can't be
+ * written is skipped; the cache never makes a build fail. A cache is only used by the solvers it is given to.
+ *
+ * @author Robert Leenders
+ * @see Matrix
+ */
+public class MatrixCache {
+    /**
+     * The magic number of a matrix file, "PSMX"
+     */
+    static final int FILE_MAGIC = 0x50534D58;
+    static final int FILE_VERSION = 2;
+    /**
+     * Number of bytes of the header: magic, version, key and the numbers of cell columns, pieces and rows
+     */
+    private static final int HEADER_SIZE = 28;
+    private final File directory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+
+    /**
+     * Constructs a cache in a directory, which is made if it doesn't exist.
+     *
+     * @param directory the directory
+     * @throws IllegalArgumentException if the directory can't be made
+     */
+    public MatrixCache(File directory) throws IllegalArgumentException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IllegalArgumentException("directory can't be made; directory:" + directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the matrix of a puzzle from the cache, or builds it and stores it in the cache.
+     *
+     * @param puzzle the puzzle
+     * @return the exact cover matrix
+     */
+    Matrix build(Puzzle puzzle) {
+        List<Piece> pieces = new ArrayList<Piece>(puzzle.getBagOfPieces().getPieces());
+        List<List<Orientation>> orientations = new ArrayList<List<Orientation>>();
+        for (Piece piece : pieces) {
+            List<Orientation> orientationsOfPiece = new ArrayList<Orientation>();
+            for (Iterator<Orientation> iterator = piece.orientationIterator(); iterator.hasNext(); )
+                orientationsOfPiece.add(iterator.next());
+            orientations.add(orientationsOfPiece);
+        }
+        long key = key(puzzle, pieces, orientations);
+        File file = getFile(key);
+
+        if (file.isFile()) {
+            try {
+                Matrix result = read(file, key, puzzle.getBox(), pieces, orientations);
+                hits.incrementAndGet();
+                return result;
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        Matrix result = Matrix.build(puzzle);
+        try {
+            write(file, key, result, pieces, orientations);
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the file of a key.
+     *
+     * @param key the key of a matrix
+     * @return the file
+     */
+    File getFile(long key) {
+        return new File(directory, String.format("%016x.matrix", key));
+    }
+
+    /**
+     * Computes the key of everything the matrix of a puzzle is built from.
+     */
+    static long key(Puzzle puzzle, List<Piece> pieces, List<List<Orientation>> orientations) {
+        Box box = puzzle.getBox();
+        long result = mix(FILE_VERSION);
+        result = mix(result ^ box.getRowCount());
+        result = mix(result ^ box.getColumnCount());
+        long word = 0;
+        int bits = 0;
+        for (int i = 0; i < box.getRowCount(); ++i) {
+            for (int j = 0; j < box.getColumnCount(); ++j) {
+                if (box.getState(i, j) == CellState.FREE)
+                    word |= 1L << bits;
+                if (++bits == 64) {
+                    result = mix(result ^ word);
+                    word = 0;
+                    bits = 0;
+                }
+            }
+        }
+        result = mix(result ^ word);
+
+        result = mix(result ^ pieces.size());
+        for (int p = 0; p < pieces.size(); ++p) {
+            Piece piece = pieces.get(p);
+            String name = piece.getName() != null ? piece.getName() : "";
+            result = mix(result ^ name.length());
+            for (int i = 0; i < name.length(); ++i)
+                result = mix(result ^ name.charAt(i));
+            result = mix(result ^ (piece.getColor() != null ? piece.getColor().getRGB() : 0));
+            result = mix(result ^ puzzle.getRemainingPlacementsOfPiece(piece));
+            result = mix(result ^ orientations.get(p).size());
+            for (Orientation orientation : orientations.get(p)) {
+                // The positions are a set, so they are combined in an order independent way
+                long positions = 0;
+                for (Position position : orientation)
+                    positions += mix(((long) position.getRow() << 32) | position.getColumn());
+                result = mix(result ^ orientation.size());
+                result = mix(result ^ positions);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * splitmix64 finalizer, spreads the bits over the whole long
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Writes a matrix to a temporary file which is renamed to {@code file}.
+     */
+    private void write(File file, long key, Matrix matrix, List<Piece> pieces, List<List<Orientation>> orientations)
+            throws IOException {
+        List<Map<Orientation, Integer>> orientationIndexes = new ArrayList<Map<Orientation, Integer>>();
+        for (List<Orientation> orientationsOfPiece : orientations) {
+            Map<Orientation, Integer> indexes = new IdentityHashMap<Orientation, Integer>();
+            for (int o = 0; o < orientationsOfPiece.size(); ++o)
+                indexes.put(orientationsOfPiece.get(o), o);
+            orientationIndexes.add(indexes);
+        }
+        Map<Piece, Integer> pieceIndexes = new IdentityHashMap<Piece, Integer>();
+        for (int p = 0; p < pieces.size(); ++p)
+            pieceIndexes.put(pieces.get(p), p);
+
+        long size = HEADER_SIZE + 8L * matrix.cellColumnCount + 4L * pieces.size() + 8;
+        for (int[] row : matrix.rows)
+            size += 4 * (5 + row.length);
+
+        File temporary = File.createTempFile("matrix", ".tmp", directory);
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(temporary, "rw");
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                buffer.putInt(FILE_MAGIC);
+                buffer.putInt(FILE_VERSION);
+                buffer.putLong(key);
+                buffer.putInt(matrix.cellColumnCount);
+                buffer.putInt(pieces.size());
+                buffer.putInt(matrix.rows.size());
+                for (Position position : matrix.columnPositions) {
+                    buffer.putInt(position.getRow());
+                    buffer.putInt(position.getColumn());
+                }
+                for (int multiplicity : matrix.pieceMultiplicities())
+                    buffer.putInt(multiplicity);
+                for (int r = 0; r < matrix.rows.size(); ++r) {
+                    int[] row = matrix.rows.get(r);
+                    Placement placement = matrix.placementOfRow.get(r);
+                    int p = pieceIndexes.get(placement.getPiece());
+                    buffer.putInt(p);
+                    buffer.putInt(orientationIndexes.get(p).get(placement.getOrientation()));
+                    buffer.putInt(placement.getAnchorPosition().getRow());
+                    buffer.putInt(placement.getAnchorPosition().getColumn());
+                    buffer.putInt(row.length);
+                    for (int column : row)
+                        buffer.putInt(column);
+                }
+                buffer.putLong(checksum(buffer.array(), HEADER_SIZE, buffer.position()));
+                buffer.flip();
+                FileChannel channel = randomAccessFile.getChannel();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            } finally {
+                randomAccessFile.close();
+            }
+            if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file)))
+                throw new IOException("Could not rename " + temporary + " to " + file);
+        } finally {
+            temporary.delete();
+        }
+    }
+
+    /**
+     * Reads a matrix from its file.
+     *
+     * @throws IOException if the file can't be read, is damaged or isn't the matrix of {@code key}
+     */
+    private Matrix read(File file, long key, Box box, List<Piece> pieces, List<List<Orientation>> orientations)
+            throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Not a matrix file: " + file);
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    throw new IOException("The matrix file is too short: " + file);
+            buffer.flip();
+            if (buffer.remaining() < HEADER_SIZE + 8 || buffer.getInt() != FILE_MAGIC
+                    || buffer.getInt() != FILE_VERSION)
+                throw new IOException("Not a matrix file: " + file);
+            int end = buffer.limit() - 8;
+            if (buffer.getLong(end) != checksum(buffer.array(), HEADER_SIZE, end))
+                throw new IOException("The matrix file is damaged: " + file);
+            buffer.limit(end);
+            if (buffer.getLong() != key)
+                throw new IOException("The matrix file is of another puzzle: " + file);
+            int cellColumnCount = buffer.getInt();
+            int pieceCount = buffer.getInt();
+            int rowCount = buffer.getInt();
+            if (cellColumnCount != box.getFreeCellCount() || pieceCount != pieces.size() || rowCount < 0)
+                throw new IOException("The matrix file is of another puzzle: " + file);
+
+            List<Position> columnPositions = new ArrayList<Position>(cellColumnCount);
+            for (int i = 0; i < cellColumnCount; ++i)
+                columnPositions.add(position(buffer, box, file));
+            int[] pieceMultiplicity = new int[pieceCount];
+            for (int p = 0; p < pieceCount; ++p)
+                pieceMultiplicity[p] = buffer.getInt();
+
+            int columnCount = cellColumnCount + pieceCount;
+            List<int[]> rows = new ArrayList<int[]>(Math.min(rowCount, buffer.remaining() / 20));
+            List<Placement> placementOfRow = new ArrayList<Placement>(Math.min(rowCount, buffer.remaining() / 20));
+            for (int r = 0; r < rowCount; ++r) {
+                int p = buffer.getInt();
+                if (p < 0 || p >= pieceCount)
+                    throw new IOException("The matrix file has a row of no piece: " + file);
+                int o = buffer.getInt();
+                if (o < 0 || o >= orientations.get(p).size())
+                    throw new IOException("The matrix file has a row of no orientation: " + file);
+                Position anchorPosition = position(buffer, box, file);
+                int length = buffer.getInt();
+                if (length < 1 || length > buffer.remaining() / 4)
+                    throw new IOException("The matrix file has a row of a wrong length: " + file);
+                int[] row = new int[length];
+                for (int i = 0; i < length; ++i) {
+                    row[i] = buffer.getInt();
+                    if (row[i] < 0 || row[i] >= columnCount)
+                        throw new IOException("The matrix file has a column out of range: " + file);
+                }
+                if (row[length - 1] != cellColumnCount + p)
+                    throw new IOException("The matrix file has a row without its piece column: " + file);
+                rows.add(row);
+                placementOfRow.add(new Placement(anchorPosition, orientations.get(p).get(o), pieces.get(p)));
+            }
+            if (buffer.hasRemaining())
+                throw new IOException("The matrix file is too long: " + file);
+            return new Matrix(columnPositions, rows, placementOfRow, pieces, pieceMultiplicity);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("The matrix file is too short: " + file);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Reads a position, which has to be in the box.
+     *
+     * @throws IOException if the position is outside the box
+     */
+    private static Position position(ByteBuffer buffer, Box box, File file) throws IOException {
+        int row = buffer.getInt();
+        int column = buffer.getInt();
+        if (row < 0 || row >= box.getRowCount() || column < 0 || column >= box.getColumnCount())
+            throw new IOException("The matrix file has a position outside the box: " + file);
+        return new Position(row, column);
+    }
+
+    /**
+     * Returns the CRC-32 checksum of {@code bytes[from..to)}.
+     */
+    static long checksum(byte[] bytes, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, to - from);
+        return crc.getValue();
+    }
+
+    /**
+     * Removes every matrix file of this cache.
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                if (file.getName().endsWith(".matrix"))
+                    file.delete();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of matrices which were read from the cache.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of matrices which were built, because they weren't in the cache.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of files which couldn't be read or written.
+     *
+     * @return number of errors
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MatrixCache{directory=%s, hits=%d, misses=%d, errors=%d}", directory, getHits(),
+                getMisses(), getErrors());
+    }
+}
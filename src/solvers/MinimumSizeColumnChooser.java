@@ -0,0 +1,23 @@
+package solvers;
+
+/**
+ * Chooses the first column with the fewest rows (Knuth's MRV heuristic). The scan stops at a column with no rows, which
+ * is a dead end, or with one row, which has to be chosen anyway.
+ *
+ * @author Robert Leenders
+ * @see DLX
+ */
+public class MinimumSizeColumnChooser extends AbstractColumnChooser {
+
+    public DLX.Column choose(DLX.Column root) {
+        DLX.Column best = null;
+        for (DLX.Column i = root.getRight(); i != root; i = i.getRight()) {
+            if (best == null || i.getSize() < best.getSize()) {
+                best = i;
+                if (best.getSize() <= 1)
+                    break;
+            }
+        }
+        return best;
+    }
+}
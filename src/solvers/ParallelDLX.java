@@ -0,0 +1,347 @@
+package solvers;
+
+import model.Placement;
+import model.Puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solver which runs the DLX algorithm on all cores, by splitting the search tree over a {@code ForkJoinPool}.
+ *
+ * Above {@code splitDepth} every row of the chosen column becomes its own task. Below it a worker only hands its
+ * remaining rows to a new task when the pool runs out of queued work, up to {@code maxSplitDepth}, so uneven subtrees
+ * don't leave workers idle. A task only holds the rows chosen so far; once it runs it replays them on its own copy of
+ * the {@link Links}, so queued tasks take hardly any memory.
+ *
+ * The same solutions as {@link DLX} are found, but not in the same order. Solutions are reported one at a time, on the
+ * worker thread that found them. The symmetries of the box can be broken like in {@link ArrayDLX}.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ */
+public class ParallelDLX extends Solver {
+    /**
+     * The dancing links in their initial state
+     */
+    private Links links;
+    /**
+     * The full exact cover matrix
+     */
+    private Matrix matrix;
+    /**
+     * The placement of every row
+     */
+    private Placement[] placementOfRow;
+    /**
+     * How the symmetries of the box are dealt with
+     */
+    private SymmetryBreaking symmetryBreaking = SymmetryBreaking.NONE;
+    /**
+     * The symmetries of the puzzle, {@code null} when they aren't broken
+     */
+    private Symmetry symmetry;
+    /**
+     * Number of worker threads
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * Depth until which every row is split off into its own task
+     */
+    private int splitDepth = 2;
+    /**
+     * Depth until which a worker splits off its remaining rows when other workers are idle
+     */
+    private int maxSplitDepth = 8;
+    /**
+     * Number of placements tried, summed over all tasks
+     */
+    private AtomicLong nodesVisited = new AtomicLong();
+    private volatile boolean stopSolver = false;
+
+
+    /**
+     * Constructs a new solver for given puzzle.
+     *
+     * @param puzzle the puzzle to be solved
+     */
+    public ParallelDLX(Puzzle puzzle) {
+        super(puzzle);
+        matrix = Matrix.build(puzzle);
+        setLinks(matrix);
+    }
+
+    private void setLinks(Matrix matrix) {
+        links = new Links(matrix);
+        placementOfRow = matrix.placementOfRow.toArray(new Placement[matrix.rows.size()]);
+    }
+
+    /**
+     * Finds all solutions of the puzzle, and reports them one by one to the listener.
+     */
+    @Override
+    public void findAll() {
+        puzzle.beginSolverSession();
+        try {
+            if (links.isSolved()) {
+                reportSolution(new int[0], 0);
+                return;
+            }
+
+            int c = links.chooseColumn();
+            if (links.down[c] == c)
+                return;
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SearchTask(new int[0], 0, links.down[c]));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            puzzle.endSolverSession();
+            nNodesVisited = nodesVisited.get();
+        }
+    }
+
+    /**
+     * Reports a solution by applying its placements to the puzzle, notifying the listeners and removing them again.
+     * When the solver is stopped by a listener, the solution stays in the puzzle.
+     *
+     * @param path  the nodes of the chosen rows
+     * @param depth the number of chosen rows
+     */
+    private synchronized void reportSolution(int[] path, int depth) {
+        if (stopSolver)
+            return;
+
+        Placement[] solution = new Placement[depth];
+        for (int i = 0; i < depth; ++i)
+            solution[i] = placementOfRow[links.row[path[i]]];
+        reportPlacements(solution);
+        if (symmetryBreaking == SymmetryBreaking.EXPAND)
+            for (Placement[] image : symmetry.images(solution, depth))
+                if (!stopSolver)
+                    reportPlacements(image);
+    }
+
+    private void reportPlacements(Placement[] solution) {
+        for (Placement placement : solution)
+            puzzle.addSolverPlacement(placement);
+        puzzle.applySolverPlacements();
+        ++nSolutionsFound;
+        puzzleSolved();
+        if (stopSolver)
+            return;
+        puzzle.revertSolverPlacements();
+        for (Placement ignored : solution)
+            puzzle.removeSolverPlacement();
+    }
+
+    @Override
+    public void stop() {
+        stopSolver = true;
+    }
+
+    public SymmetryBreaking getSymmetryBreaking() {
+        return symmetryBreaking;
+    }
+
+    /**
+     * Sets how the symmetries of the box are dealt with.
+     *
+     * @param symmetryBreaking the way to deal with symmetries
+     * @throws IllegalArgumentException if {@code symmetryBreaking} is {@code null}
+     * @see ArrayDLX#setSymmetryBreaking(SymmetryBreaking)
+     */
+    public void setSymmetryBreaking(SymmetryBreaking symmetryBreaking) throws IllegalArgumentException {
+        if (symmetryBreaking == null)
+            throw new IllegalArgumentException("symmetryBreaking is null");
+        this.symmetryBreaking = symmetryBreaking;
+        if (symmetryBreaking == SymmetryBreaking.NONE) {
+            symmetry = null;
+            setLinks(matrix);
+        } else {
+            symmetry = new Symmetry(matrix, puzzle.getBox());
+            setLinks(symmetry.restrict());
+        }
+    }
+
+    /**
+     * Returns the number of symmetries which are broken, including the identity.
+     *
+     * @return the factor by which the search is cut, 1 if the symmetries aren't broken
+     */
+    public int getSymmetryOrder() {
+        return symmetry == null ? 1 : symmetry.getOrder();
+    }
+
+    /**
+     * Returns the number of rows of the exact cover matrix, before symmetry breaking.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return matrix.rows.size();
+    }
+
+    /**
+     * Returns the number of rows the matrix would have had more with the duplicate orientations of the pieces.
+     *
+     * @return the number of rows saved by dropping duplicate orientations
+     * @see model.Piece#getDuplicateCount(model.Orientation)
+     */
+    public int getDuplicateRowCount() {
+        return matrix.duplicateRowCount();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of worker threads.
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if {@code parallelism <= 0}
+     */
+    public void setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism is below or equal to 0; parallelism:" + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    /**
+     * Sets the depth until which every row is split off into its own task.
+     *
+     * @param splitDepth the depth
+     * @throws IllegalArgumentException if {@code splitDepth < 0}
+     */
+    public void setSplitDepth(int splitDepth) throws IllegalArgumentException {
+        if (splitDepth < 0)
+            throw new IllegalArgumentException("splitDepth is below 0; splitDepth:" + splitDepth);
+        this.splitDepth = splitDepth;
+        this.maxSplitDepth = Math.max(maxSplitDepth, splitDepth);
+    }
+
+    public int getMaxSplitDepth() {
+        return maxSplitDepth;
+    }
+
+    /**
+     * Sets the depth until which a worker splits off its remaining rows when other workers are idle.
+     *
+     * @param maxSplitDepth the depth
+     * @throws IllegalArgumentException if {@code maxSplitDepth < splitDepth}
+     */
+    public void setMaxSplitDepth(int maxSplitDepth) throws IllegalArgumentException {
+        if (maxSplitDepth < splitDepth)
+            throw new IllegalArgumentException("maxSplitDepth is below splitDepth; maxSplitDepth:" + maxSplitDepth);
+        this.maxSplitDepth = maxSplitDepth;
+    }
+
+    /**
+     * Task which tries the rows of one column, starting at a given row, on its own copy of the links.
+     */
+    private class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private Links links;
+        private int[] path;
+        private final int depth;
+        private final int firstRow;
+        private long nodes = 0;
+        private List<SearchTask> forked = new ArrayList<SearchTask>();
+
+        /**
+         * Constructs a new task.
+         *
+         * @param path     the nodes of the rows chosen so far
+         * @param depth    the number of rows chosen so far
+         * @param firstRow the first node to try in the column which is chosen after the path
+         */
+        SearchTask(int[] path, int depth, int firstRow) {
+            this.path = path;
+            this.depth = depth;
+            this.firstRow = firstRow;
+        }
+
+        @Override
+        protected void compute() {
+            links = new Links(ParallelDLX.this.links);
+            for (int i = 0; i < depth; ++i) {
+                int c = links.column[path[i]];
+                replayColumn(c, path[i]);
+                links.selectRow(c, path[i]);
+            }
+            int c = links.column[firstRow];
+            replayColumn(c, firstRow);
+            tryRows(c, firstRow, depth);
+            links = null;
+            nodesVisited.addAndGet(nodes);
+            for (SearchTask task : forked)
+                task.join();
+        }
+
+        /**
+         * Begins column {@code c} as the search did, including skipping the siblings which were tried before row
+         * {@code r}.
+         */
+        private void replayColumn(int c, int r) {
+            links.beginColumn(c);
+            for (int i = links.down[c]; i != r; i = links.down[i])
+                links.skipRow(c, i);
+        }
+
+        /**
+         * Tries the rows of the begun column {@code c}, starting at {@code first}.
+         */
+        private void tryRows(int c, int first, int depth) {
+            for (int r = first; r != c; r = links.down[r]) {
+                if (stopSolver)
+                    return;
+                if (links.down[r] != c && shouldSplit(depth)) {
+                    SearchTask task = new SearchTask(Arrays.copyOf(path, depth), depth, links.down[r]);
+                    forked.add(task);
+                    task.fork();
+                    tryRow(c, r, depth);
+                    return;
+                }
+                tryRow(c, r, depth);
+            }
+        }
+
+        private void tryRow(int c, int r, int depth) {
+            ++nodes;
+            if (path.length <= depth)
+                path = Arrays.copyOf(path, 2 * depth + 1);
+            path[depth] = r;
+            links.selectRow(c, r);
+            search(depth + 1);
+            links.unselectRow(c, r);
+        }
+
+        private void search(int depth) {
+            if (links.isSolved()) {
+                reportSolution(path, depth);
+                return;
+            }
+
+            int c = links.chooseColumn();
+            links.beginColumn(c);
+            tryRows(c, links.down[c], depth);
+            links.endColumn(c);
+        }
+
+        private boolean shouldSplit(int depth) {
+            return depth < splitDepth || (depth < maxSplitDepth && getSurplusQueuedTaskCount() <= 0);
+        }
+    }
+}
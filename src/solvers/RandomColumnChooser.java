@@ -0,0 +1,47 @@
+package solvers;
+
+import java.util.Random;
+
+/**
+ * Chooses a random column among the columns with the fewest rows. Runs with different seeds show how much the search
+ * depends on the order of the columns.
+ *
+ * @author Robert Leenders
+ * @see MinimumSizeColumnChooser
+ */
+public class RandomColumnChooser extends AbstractColumnChooser {
+    private Random random;
+
+
+    /**
+     * Constructs a chooser with a random seed.
+     */
+    public RandomColumnChooser() {
+        random = new Random();
+    }
+
+    /**
+     * Constructs a chooser with the given seed, so a search can be repeated.
+     *
+     * @param seed the seed of the random generator
+     */
+    public RandomColumnChooser(long seed) {
+        random = new Random(seed);
+    }
+
+    public DLX.Column choose(DLX.Column root) {
+        DLX.Column best = null;
+        int ties = 0;
+        for (DLX.Column i = root.getRight(); i != root; i = i.getRight()) {
+            if (best == null || i.getSize() < best.getSize()) {
+                best = i;
+                ties = 1;
+                if (best.getSize() == 0)
+                    break;
+            } else if (i.getSize() == best.getSize() && random.nextInt(++ties) == 0) {
+                best = i; // every tie is kept with probability 1 / ties
+            }
+        }
+        return best;
+    }
+}
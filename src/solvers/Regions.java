@@ -0,0 +1,201 @@
+package solvers;
+
+import model.Position;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds regions of free cells which can't be filled by the remaining pieces, so a search can cut the branch.
+ *
+ * The cells are indexed {@code 0..cellCount - 1} with a list of neighbours per cell. A region is a connected component
+ * of free cells; it can only be filled if its area is a sum of the sizes of some remaining pieces. The areas which are a
+ * sum are kept as a bitset, built by shifting it once for every remaining copy of every piece.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX
+ * @see BitboardSolver
+ */
+class Regions {
+    /**
+     * The neighbours of every cell
+     */
+    private final int[][] neighbours;
+    /**
+     * Whether every cell is free, filled by the caller before {@link #hasDeadRegion(int[], int[])}
+     */
+    final boolean[] free;
+    /**
+     * The areas which are a sum of remaining piece sizes, as a bitset
+     */
+    private final long[] reachable;
+    /**
+     * Stack of the flood fill
+     */
+    private final int[] stack;
+    /**
+     * Whether every cell has been visited by the current flood fill
+     */
+    private final boolean[] visited;
+
+
+    /**
+     * Constructs the region check for cells with the given neighbours.
+     *
+     * @param neighbours the neighbours of every cell
+     */
+    Regions(int[][] neighbours) {
+        this.neighbours = neighbours;
+        int cellCount = neighbours.length;
+        free = new boolean[cellCount];
+        reachable = new long[cellCount / 64 + 1];
+        stack = new int[cellCount];
+        visited = new boolean[cellCount];
+    }
+
+    /**
+     * Returns the neighbours of every cell of a box of which every cell is indexed.
+     *
+     * @param rowCount    the number of rows
+     * @param columnCount the number of columns
+     * @param columnMajor whether the cells are numbered column by column instead of row by row
+     * @return the neighbours of every cell
+     */
+    static int[][] gridNeighbours(int rowCount, int columnCount, boolean columnMajor) {
+        int[][] result = new int[rowCount * columnCount][];
+        for (int i = 0; i < rowCount; ++i) {
+            for (int j = 0; j < columnCount; ++j) {
+                int[] candidates = new int[4];
+                int n = 0;
+                if (i > 0) candidates[n++] = index(i - 1, j, rowCount, columnCount, columnMajor);
+                if (i < rowCount - 1) candidates[n++] = index(i + 1, j, rowCount, columnCount, columnMajor);
+                if (j > 0) candidates[n++] = index(i, j - 1, rowCount, columnCount, columnMajor);
+                if (j < columnCount - 1) candidates[n++] = index(i, j + 1, rowCount, columnCount, columnMajor);
+                result[index(i, j, rowCount, columnCount, columnMajor)] = Arrays.copyOf(candidates, n);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the neighbours of every cell, where the cells are the given positions.
+     *
+     * @param positions the position of every cell
+     * @return the neighbours of every cell
+     */
+    static int[][] neighbours(List<Position> positions) {
+        Map<Position, Integer> cellOfPosition = new HashMap<Position, Integer>();
+        for (int i = 0; i < positions.size(); ++i)
+            cellOfPosition.put(positions.get(i), i);
+
+        int[][] result = new int[positions.size()][];
+        for (int i = 0; i < positions.size(); ++i) {
+            int row = positions.get(i).getRow();
+            int column = positions.get(i).getColumn();
+            int[] candidates = new int[4];
+            int n = 0;
+            for (int[] delta : new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+                if (row + delta[0] < 0 || column + delta[1] < 0)
+                    continue;
+                Integer neighbour = cellOfPosition.get(new Position(row + delta[0], column + delta[1]));
+                if (neighbour != null)
+                    candidates[n++] = neighbour;
+            }
+            result[i] = Arrays.copyOf(candidates, n);
+        }
+        return result;
+    }
+
+    private static int index(int row, int column, int rowCount, int columnCount, boolean columnMajor) {
+        return columnMajor ? column * rowCount + row : row * columnCount + column;
+    }
+
+    /**
+     * Returns whether some region of free cells can't be filled by the remaining pieces.
+     *
+     * @param sizes     the size of every piece
+     * @param remaining the number of remaining copies of every piece
+     * @return {@code true} if a region is dead; false otherwise
+     */
+    boolean hasDeadRegion(int[] sizes, int[] remaining) {
+        Arrays.fill(visited, false);
+        boolean reachableKnown = false;
+        for (int start = 0; start < free.length; ++start) {
+            if (!free[start] || visited[start])
+                continue;
+
+            int area = fill(start);
+            if (!reachableKnown) {
+                computeReachable(sizes, remaining);
+                reachableKnown = true;
+            }
+            if (!isReachable(area))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Visits the region of {@code start}.
+     *
+     * @return the area of the region
+     */
+    private int fill(int start) {
+        int area = 0;
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = true;
+        while (top > 0) {
+            int cell = stack[--top];
+            ++area;
+            for (int neighbour : neighbours[cell]) {
+                if (free[neighbour] && !visited[neighbour]) {
+                    visited[neighbour] = true;
+                    stack[top++] = neighbour;
+                }
+            }
+        }
+        return area;
+    }
+
+    /**
+     * Computes which areas are a sum of remaining piece sizes.
+     *
+     * @param sizes     the size of every piece
+     * @param remaining the number of remaining copies of every piece
+     */
+    void computeReachable(int[] sizes, int[] remaining) {
+        Arrays.fill(reachable, 0);
+        reachable[0] = 1;
+        for (int p = 0; p < sizes.length; ++p)
+            for (int copy = 0; copy < remaining[p]; ++copy)
+                orShifted(sizes[p]);
+    }
+
+    /**
+     * Returns whether an area is a sum of remaining piece sizes, as computed by the last {@link
+     * #computeReachable(int[], int[])}.
+     *
+     * @param area the area, at most the number of cells
+     * @return {@code true} if the area can be filled; false otherwise
+     */
+    boolean isReachable(int area) {
+        return (reachable[area >>> 6] & (1L << area)) != 0;
+    }
+
+    /**
+     * {@code reachable |= reachable << shift}
+     */
+    private void orShifted(int shift) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int w = reachable.length - 1; w >= wordShift; --w) {
+            long shifted = reachable[w - wordShift] << bitShift;
+            if (bitShift != 0 && w - wordShift - 1 >= 0)
+                shifted |= reachable[w - wordShift - 1] >>> (64 - bitShift);
+            reachable[w] |= shifted;
+        }
+    }
+}
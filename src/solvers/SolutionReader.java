@@ -0,0 +1,241 @@
+package solvers;
+
+import model.Puzzle;
+import textio.PuzzleReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads a file written by {@link SolutionWriter}, one solution after the other or at any solution through the index.
+ *
+ * A solution is read as the rows of its placements; {@link #toText(Puzzle, PrintStream)} turns the solutions back into
+ * boxes, for a puzzle in the same state as the one which was solved.
+ *
+ * @author Robert Leenders
+ * @see SolutionWriter
+ */
+public class SolutionReader implements Closeable {
+    private final FileChannel channel;
+    private final int matrixHash;
+    private final long count;
+    private final int stride;
+    /**
+     * The position of every {@code stride}th solution
+     */
+    private final long[] index;
+    /**
+     * Bytes read from the file, from {@code bufferPosition} on
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private long bufferPosition;
+    /**
+     * The number of the solution which {@link #next()} reads
+     */
+    private long next;
+
+
+    /**
+     * Opens a solution file.
+     *
+     * @param file the file
+     * @throws IOException if the file can't be read or isn't a complete solution file
+     */
+    public SolutionReader(File file) throws IOException {
+        channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            long size = channel.size();
+            ByteBuffer header = readFully(0, 9);
+            if (header == null || header.getInt() != SolutionWriter.FILE_MAGIC || header.get() != SolutionWriter.FILE_VERSION)
+                throw new IOException("Not a solution file: " + file);
+            matrixHash = header.getInt();
+
+            ByteBuffer trailer = readFully(size - SolutionWriter.TRAILER_BYTES, SolutionWriter.TRAILER_BYTES);
+            if (trailer == null || trailer.getInt(SolutionWriter.TRAILER_BYTES - 4) != SolutionWriter.FILE_MAGIC)
+                throw new IOException("The solution file isn't closed: " + file);
+            long indexPosition = trailer.getLong();
+            count = trailer.getLong();
+            stride = trailer.getInt();
+            long entries = stride <= 0 ? -1 : (count + stride - 1) / stride;
+            if (entries < 0 || indexPosition < 9 || indexPosition + 8 * entries != size - SolutionWriter.TRAILER_BYTES)
+                throw new IOException("Corrupt solution file: " + file);
+
+            index = new long[(int) entries];
+            ByteBuffer indexBytes = readFully(indexPosition, 8 * (int) entries);
+            for (int i = 0; i < index.length; ++i)
+                index[i] = indexBytes.getLong();
+            seek(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position}.
+     *
+     * @return the bytes, or {@code null} if the file is too short
+     */
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        if (position < 0)
+            return null;
+        ByteBuffer result = ByteBuffer.allocate(length);
+        while (result.hasRemaining())
+            if (channel.read(result, position + result.position()) < 0)
+                return null;
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Returns the number of solutions in the file.
+     *
+     * @return the number of solutions
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Moves to solution {@code n}, so {@link #next()} reads it. Only the solutions after the nearest index entry are
+     * read on the way.
+     *
+     * @param n the number of the solution, from 0
+     * @throws IOException               if the file can't be read
+     * @throws IndexOutOfBoundsException if there is no solution {@code n}
+     */
+    public void seek(long n) throws IOException {
+        if (n < 0 || n > count)
+            throw new IndexOutOfBoundsException("n is out of range; n:" + n);
+        if (n == count) {
+            next = count;
+            return;
+        }
+        bufferPosition = index[(int) (n / stride)];
+        buffer.clear().flip();
+        next = n / stride * stride;
+        while (next < n)
+            next();
+    }
+
+    /**
+     * Reads solution {@code n}.
+     *
+     * @param n the number of the solution, from 0
+     * @return the rows of the solution, in ascending order
+     * @throws IOException               if the file can't be read
+     * @throws IndexOutOfBoundsException if there is no solution {@code n}
+     */
+    public int[] read(long n) throws IOException {
+        if (n < 0 || n >= count)
+            throw new IndexOutOfBoundsException("n is out of range; n:" + n);
+        seek(n);
+        return next();
+    }
+
+    /**
+     * Reads the next solution.
+     *
+     * @return the rows of the solution in ascending order, or {@code null} after the last solution
+     * @throws IOException if the file can't be read
+     */
+    public int[] next() throws IOException {
+        if (next == count)
+            return null;
+        int[] result = new int[readVarint()];
+        int row = 0;
+        for (int i = 0; i < result.length; ++i) {
+            row += readVarint();
+            result[i] = row;
+        }
+        ++next;
+        return result;
+    }
+
+    private int readVarint() throws IOException {
+        int result = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                bufferPosition += buffer.limit();
+                buffer.clear();
+                if (channel.read(buffer, bufferPosition) <= 0)
+                    throw new EOFException("Solution file ends in a solution");
+                buffer.flip();
+            }
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+    }
+
+    /**
+     * Writes every solution as a box, like the log of the GUI.
+     *
+     * @param puzzle the puzzle, in the state in which it was solved
+     * @param out    the stream to write to
+     * @throws IOException if the file can't be read or is of another puzzle
+     */
+    public void toText(Puzzle puzzle, PrintStream out) throws IOException {
+        Matrix matrix = matrixOf(puzzle);
+        seek(0);
+        for (int[] rows = next(); rows != null; rows = next())
+            printSolution(matrix, puzzle, rows, next, out);
+    }
+
+    /**
+     * Builds the matrix of a puzzle and checks that it is the matrix of the solutions.
+     */
+    private Matrix matrixOf(Puzzle puzzle) throws IOException {
+        Matrix matrix = Matrix.build(puzzle);
+        if (matrix.hash() != matrixHash)
+            throw new IOException("The solution file is of another puzzle");
+        return matrix;
+    }
+
+    private static void printSolution(Matrix matrix, Puzzle puzzle, int[] rows, long number, PrintStream out) throws IOException {
+        Puzzle box = puzzle.copy(true);
+        for (int row : rows) {
+            if (row >= matrix.rows.size())
+                throw new IOException("The solution file is of another puzzle");
+            box.addPlacement(matrix.placementOfRow.get(row));
+        }
+        out.println("Solution #" + number);
+        out.println(box.getBox());
+        out.println();
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the solutions of a solution file as text, or only the given solutions.
+     *
+     * Usage: {@code java solvers.SolutionReader puzzle.txt solutions.bin [n ...]}
+     *
+     * @param args the puzzle file, the solution file and the numbers of the solutions, from 0
+     * @throws IOException if a file can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java solvers.SolutionReader puzzle.txt solutions.bin [n ...]");
+            System.exit(2);
+        }
+        Puzzle puzzle = PuzzleReader.read(args[0]);
+        SolutionReader reader = new SolutionReader(new File(args[1]));
+        try {
+            if (args.length == 2) {
+                reader.toText(puzzle, System.out);
+                return;
+            }
+            Matrix matrix = reader.matrixOf(puzzle);
+            for (String n : Arrays.copyOfRange(args, 2, args.length))
+                printSolution(matrix, puzzle, reader.read(Long.parseLong(n)), Long.parseLong(n) + 1, System.out);
+        } finally {
+            reader.close();
+        }
+    }
+}
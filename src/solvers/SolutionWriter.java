@@ -0,0 +1,187 @@
+package solvers;
+
+import model.IllegalOperationException;
+import model.Placement;
+import model.Puzzle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener which streams every reported solution to a compact binary file, instead of keeping it as text.
+ *
+ * A solution is stored as the rows of its placements in the exact cover matrix of the puzzle (see {@link Matrix}),
+ * sorted and delta coded as variable length integers: the number of rows, the first row and then the differences
+ * between the rows. A pentomino solution of the 6x10 box takes about 19 bytes instead of the 65 of its box as text.
+ * Placements which were in the box before the search are the same in every solution and aren't written.
+ *
+ * The file starts with a header with a hash of the matrix. {@link #close()} ends it with an index, holding the position
+ * of every {@link #INDEX_STRIDE}th solution, followed by a trailer, so {@link SolutionReader} can seek to a solution.
+ * The bytes go through a buffer to a file channel.
+ *
+ * @author Robert Leenders
+ * @see SolutionReader
+ */
+public class SolutionWriter implements SolverListener, Closeable {
+    static final int FILE_MAGIC = 0x5053534F;
+    static final int FILE_VERSION = 1;
+    /**
+     * Number of solutions per index entry
+     */
+    static final int INDEX_STRIDE = 64;
+    /**
+     * Bytes of the trailer: the index position, the number of solutions, the stride and the magic
+     */
+    static final int TRAILER_BYTES = 8 + 8 + 4 + 4;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    /**
+     * The row of every placement of the matrix
+     */
+    private final Map<Placement, Integer> rowOfPlacement = new HashMap<Placement, Integer>();
+    /**
+     * Number of bytes written so far, including those in the buffer
+     */
+    private long position = 0;
+    private long count = 0;
+    /**
+     * The position of every {@code INDEX_STRIDE}th solution
+     */
+    private long[] index = new long[16];
+    private int indexSize = 0;
+    private int[] rows = new int[16];
+    private boolean closed = false;
+
+
+    /**
+     * Constructs a writer for the solutions of a puzzle, of which the matrix is built from its current state.
+     *
+     * @param file   the file, which is overwritten
+     * @param puzzle the puzzle
+     * @throws IOException if the file can't be written
+     */
+    public SolutionWriter(File file, Puzzle puzzle) throws IOException {
+        Matrix matrix = Matrix.build(puzzle);
+        for (int row = 0; row < matrix.rows.size(); ++row)
+            rowOfPlacement.put(matrix.placementOfRow.get(row), row);
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(0);
+        channel = randomAccessFile.getChannel();
+        buffer.putInt(FILE_MAGIC);
+        buffer.put((byte) FILE_VERSION);
+        buffer.putInt(matrix.hash());
+        position = buffer.position();
+    }
+
+    /**
+     * Writes the solution which is in the box of {@code puzzle}.
+     *
+     * @throws RuntimeException if the solution can't be written
+     */
+    public synchronized void solutionFound(int solutionNumber, Puzzle puzzle) {
+        int n = 0;
+        for (Placement placement : puzzle.getBox().getPlacements()) {
+            Integer row = rowOfPlacement.get(placement);
+            if (row == null)
+                continue;
+            if (n == rows.length)
+                rows = Arrays.copyOf(rows, 2 * n);
+            rows[n++] = row;
+        }
+        try {
+            write(rows, n);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write solution " + solutionNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a solution given by its rows.
+     *
+     * @param solution the rows of the solution, which are sorted in place
+     * @param length   the number of rows in {@code solution}
+     * @throws IOException               if the solution can't be written
+     * @throws IllegalOperationException if the writer is closed
+     */
+    public synchronized void write(int[] solution, int length) throws IOException {
+        if (closed)
+            throw new IllegalOperationException("The writer is closed.");
+        Arrays.sort(solution, 0, length);
+        if (count % INDEX_STRIDE == 0) {
+            if (indexSize == index.length)
+                index = Arrays.copyOf(index, 2 * indexSize);
+            index[indexSize++] = position;
+        }
+        writeVarint(length);
+        int previous = 0;
+        for (int i = 0; i < length; ++i) {
+            writeVarint(solution[i] - previous);
+            previous = solution[i];
+        }
+        ++count;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        if (buffer.remaining() < 5)
+            flush();
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            ++position;
+        }
+        buffer.put((byte) value);
+        ++position;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of solutions written so far.
+     *
+     * @return the number of solutions
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the index and the trailer and closes the file. Closing a closed writer does nothing.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            long indexPosition = position;
+            for (int i = 0; i < indexSize; ++i) {
+                if (buffer.remaining() < 8)
+                    flush();
+                buffer.putLong(index[i]);
+            }
+            if (buffer.remaining() < TRAILER_BYTES)
+                flush();
+            buffer.putLong(indexPosition);
+            buffer.putLong(count);
+            buffer.putInt(INDEX_STRIDE);
+            buffer.putInt(FILE_MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package solvers;
+
+/**
+ * Defines whether the placements in a box can still be completed, as found by {@link SolvabilityChecker}
+ *
+ * {@code UNKNOWN} means the search ran out of time before it found a solution or ruled them all out.
+ *
+ * @author Robert Leenders
+ * @see SolvabilityChecker
+ */
+public enum Solvability {
+    SOLVABLE, UNSOLVABLE, UNKNOWN
+}
@@ -0,0 +1,245 @@
+package solvers;
+
+import model.*;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks whether the placements in a box can still be completed, fast enough to run after every placement of the user.
+ *
+ * A check first tries necessary conditions which take no search: the pieces left must cover at least the free cells;
+ * when they cover exactly the free cells, the difference between the free black and white cells of a checkerboard
+ * colouring must be a sum of what the pieces left can cover; and every region of free cells must have an area which
+ * the pieces left can fill, see {@link Regions}. If those pass, an {@link ArrayDLX} looks for a first solution for at
+ * most {@code timeBudget} milliseconds.
+ *
+ * {@link #checkLater(Puzzle, SolvabilityListener)} runs checks on a background thread, one at a time. A new check makes
+ * the one before it stale: it is stopped, and its result is never reported. Results are cached by the fingerprint of
+ * the box, so a checker should only be used for one bag of pieces.
+ *
+ * @author Robert Leenders
+ * @see Solvability
+ */
+public class SolvabilityChecker {
+    /**
+     * Number of results which are cached
+     */
+    private static final int CACHE_SIZE = 1024;
+    /**
+     * The maximum time of the search of a check, in milliseconds
+     */
+    private final long timeBudget;
+    /**
+     * The known results, by fingerprint of the box; the least recently used result is dropped first
+     */
+    private final Map<Long, Solvability> cache = Collections.synchronizedMap(new LinkedHashMap<Long, Solvability>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Solvability> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+    /**
+     * Number of the latest check; a check with another number is stale
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * The solver of the running check, {@code null} when none is running
+     */
+    private volatile Solver running;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SolvabilityChecker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final Timer timer = new Timer("SolvabilityChecker timer", true);
+
+
+    /**
+     * Constructs a checker of which the search takes at most {@code timeBudget} milliseconds.
+     *
+     * @param timeBudget the maximum time of a search in milliseconds
+     * @throws IllegalArgumentException if {@code timeBudget <= 0}
+     */
+    public SolvabilityChecker(long timeBudget) throws IllegalArgumentException {
+        if (timeBudget <= 0)
+            throw new IllegalArgumentException("timeBudget is below 1; timeBudget:" + timeBudget);
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Checks a puzzle on the background thread and reports the result to the listener, unless a newer check has been
+     * asked for by then. The placements are copied right away, so the puzzle may change during the check.
+     *
+     * @param puzzle   the puzzle to check
+     * @param listener the listener to report the result to
+     */
+    public void checkLater(Puzzle puzzle, final SolvabilityListener listener) {
+        final long check = generation.incrementAndGet();
+        Solver solver = running;
+        if (solver != null)
+            solver.stop();
+
+        final long fingerprint = puzzle.getBox().getFingerprint();
+        Solvability cached = cache.get(fingerprint);
+        if (cached != null) {
+            listener.solvabilityChecked(fingerprint, cached);
+            return;
+        }
+
+        final Puzzle snapshot = puzzle.copy(true);
+        executor.execute(new Runnable() {
+            public void run() {
+                if (generation.get() != check)
+                    return;
+                Solvability result = check(snapshot, check);
+                if (generation.get() == check)
+                    listener.solvabilityChecked(fingerprint, result);
+            }
+        });
+    }
+
+    /**
+     * Checks a puzzle on the calling thread.
+     *
+     * @param puzzle the puzzle to check, which is left alone
+     * @return whether the placements in the box can be completed
+     */
+    public Solvability check(Puzzle puzzle) {
+        return check(puzzle.copy(true), generation.get());
+    }
+
+    private Solvability check(Puzzle puzzle, long check) {
+        long fingerprint = puzzle.getBox().getFingerprint();
+        Solvability cached = cache.get(fingerprint);
+        if (cached != null)
+            return cached;
+
+        Solvability result = failsNecessaryCondition(puzzle) ? Solvability.UNSOLVABLE : search(puzzle, check);
+        if (result != Solvability.UNKNOWN)
+            cache.put(fingerprint, result);
+        return result;
+    }
+
+    /**
+     * Returns whether the box fails the area, parity or region check.
+     */
+    static boolean failsNecessaryCondition(Puzzle puzzle) {
+        Box box = puzzle.getBox();
+        List<Piece> pieces = new ArrayList<Piece>(puzzle.getBagOfPieces().getPieces());
+        int[] sizes = new int[pieces.size()];
+        int[] remaining = new int[pieces.size()];
+        int area = 0;
+        for (int p = 0; p < pieces.size(); ++p) {
+            sizes[p] = pieces.get(p).orientationIterator().next().size();
+            remaining[p] = puzzle.getRemainingPlacementsOfPiece(pieces.get(p));
+            area += sizes[p] * remaining[p];
+        }
+        if (area < box.getFreeCellCount())
+            return true;
+
+        Regions regions = new Regions(Regions.gridNeighbours(box.getRowCount(), box.getColumnCount(), false));
+        int imbalance = 0;
+        for (int i = 0; i < box.getRowCount(); ++i) {
+            for (int j = 0; j < box.getColumnCount(); ++j) {
+                boolean free = box.getState(i, j) == CellState.FREE;
+                regions.free[i * box.getColumnCount() + j] = free;
+                if (free)
+                    imbalance += (i + j) % 2 == 0 ? 1 : -1;
+            }
+        }
+        if (area == box.getFreeCellCount() && !isParityReachable(pieces, remaining, imbalance))
+            return true;
+        return regions.hasDeadRegion(sizes, remaining);
+    }
+
+    /**
+     * Returns whether the pieces left can cover {@code imbalance} more black than white cells, when all of them are
+     * used. A placement of an orientation covers its own difference on an anchor with a black cell, and minus it on a
+     * white one.
+     */
+    private static boolean isParityReachable(List<Piece> pieces, int[] remaining, int imbalance) {
+        int bound = 0;
+        List<int[]> choices = new ArrayList<int[]>();
+        for (int p = 0; p < pieces.size(); ++p) {
+            Set<Integer> differences = new TreeSet<Integer>();
+            for (Iterator<Orientation> iterator = pieces.get(p).orientationIterator(); iterator.hasNext(); ) {
+                int difference = 0;
+                for (Position position : iterator.next())
+                    difference += (position.getRow() + position.getColumn()) % 2 == 0 ? 1 : -1;
+                differences.add(difference);
+                differences.add(-difference);
+            }
+            int[] choice = new int[differences.size()];
+            int i = 0;
+            for (int difference : differences)
+                choice[i++] = difference;
+            for (int copy = 0; copy < remaining[p]; ++copy)
+                choices.add(choice);
+            bound += remaining[p] * choice[choice.length - 1];
+        }
+        if (Math.abs(imbalance) > bound)
+            return false;
+
+        boolean[] reachable = new boolean[2 * bound + 1];
+        reachable[bound] = true;
+        for (int[] choice : choices) {
+            boolean[] next = new boolean[reachable.length];
+            for (int sum = 0; sum < reachable.length; ++sum)
+                if (reachable[sum])
+                    for (int difference : choice)
+                        if (sum + difference >= 0 && sum + difference < next.length)
+                            next[sum + difference] = true;
+            reachable = next;
+        }
+        return reachable[bound + imbalance];
+    }
+
+    /**
+     * Looks for a first solution for at most {@code timeBudget} milliseconds.
+     */
+    private Solvability search(Puzzle puzzle, long check) {
+        final ArrayDLX arrayDLX = new ArrayDLX(puzzle);
+        arrayDLX.setPruneDeadRegions(true);
+        arrayDLX.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                arrayDLX.stop();
+            }
+        });
+
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        TimerTask timeout = new TimerTask() {
+            public void run() {
+                timedOut.set(true);
+                arrayDLX.stop();
+            }
+        };
+        running = arrayDLX;
+        try {
+            if (generation.get() != check)
+                return Solvability.UNKNOWN;
+            timer.schedule(timeout, timeBudget);
+            arrayDLX.findAll();
+        } finally {
+            timeout.cancel();
+            running = null;
+        }
+
+        if (arrayDLX.getNSolutionsFound() > 0)
+            return Solvability.SOLVABLE;
+        return timedOut.get() || generation.get() != check ? Solvability.UNKNOWN : Solvability.UNSOLVABLE;
+    }
+
+    /**
+     * Forgets the cached results, for when the bag of pieces changes.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package solvers;
+
+import java.util.EventListener;
+
+/**
+ * Interface with the results of {@link SolvabilityChecker#checkLater(model.Puzzle, SolvabilityListener)}.
+ *
+ * @author Robert Leenders
+ */
+public interface SolvabilityListener extends EventListener {
+
+    /**
+     * Reports the result of a check, on the thread of the checker unless the result was cached.
+     *
+     * @param fingerprint the fingerprint of the checked box
+     * @param solvability whether the box can be completed
+     */
+    void solvabilityChecked(long fingerprint, Solvability solvability);
+
+}
@@ -15,6 +15,8 @@ import java.util.List;
 public class Solver {
     protected Puzzle puzzle; // the puzzle being solved
     protected int nSolutionsFound = 0; // number of solutions found
+    protected long nNodesVisited = 0; // number of placements tried during the search
+    protected long nNodesPruned = 0; // number of placements whose subtree is cut by pruning
     protected List<SolverListener> listeners;
 
     /**
@@ -42,6 +44,12 @@ public class Solver {
     public void findAll() {
     }
 
+    /**
+     * Asks the solver to stop searching. Solvers which cannot be stopped ignore this.
+     */
+    public void stop() {
+    }
+
     /**
      * Gets the value of nSolutionsFound
      *
@@ -51,6 +59,25 @@ public class Solver {
         return nSolutionsFound;
     }
 
+    /**
+     * Gets the number of placements tried during the search, so solvers can be compared on throughput.
+     *
+     * @return the number of visited search nodes
+     */
+    public long getNNodesVisited() {
+        return nNodesVisited;
+    }
+
+    /**
+     * Gets the number of placements after which the search was cut because the rest of the box couldn't be filled.
+     * Solvers which don't prune leave it 0.
+     *
+     * @return the number of pruned search nodes
+     */
+    public long getNNodesPruned() {
+        return nNodesPruned;
+    }
+
     public Puzzle getPuzzle() {
         return puzzle;
     }
@@ -0,0 +1,232 @@
+package solvers;
+
+import model.Box;
+import model.Placement;
+import model.Position;
+
+import java.util.*;
+
+/**
+ * The symmetries of a puzzle, used to search only one tiling of every group of symmetric tilings.
+ *
+ * A rectangular box has 4 candidate symmetries (identity, rotating by 180 degrees and flipping either way) and a square
+ * box 8. A candidate is a symmetry of the puzzle when it maps every free cell of the box on a free cell, which takes the
+ * blocked positions and any placements in the box into account, and every row of the matrix on a row of the same piece;
+ * a piece whose orientations are restricted breaks the symmetries which would need the missing orientations.
+ *
+ * The symmetry is broken on a piece with multiplicity one of which no placement is mapped on itself by a symmetry, in a
+ * puzzle in which every piece has to be used. Every group of symmetric tilings then places that piece once on every
+ * placement of an orbit, so keeping only the first placement of every orbit keeps exactly one tiling of every group.
+ *
+ * @author Robert Leenders
+ * @see SymmetryBreaking
+ */
+class Symmetry {
+    /**
+     * The full matrix
+     */
+    private Matrix matrix;
+    /**
+     * The image of every row, per symmetry other than the identity
+     */
+    private List<int[]> rowImages = new ArrayList<int[]>();
+    /**
+     * The row of every placement of the full matrix, by identity
+     */
+    private Map<Placement, Integer> rowOfPlacement = new IdentityHashMap<Placement, Integer>();
+    /**
+     * The index in the matrix of the piece on which the symmetry is broken, -1 if it can't be broken
+     */
+    private int piece = -1;
+
+
+    /**
+     * Finds the symmetries of the matrix of a puzzle and the piece to break them on.
+     *
+     * @param matrix the exact cover matrix of the puzzle
+     * @param box    the box of the puzzle
+     */
+    Symmetry(Matrix matrix, Box box) {
+        this.matrix = matrix;
+        for (int row = 0; row < matrix.rows.size(); ++row)
+            rowOfPlacement.put(matrix.placementOfRow.get(row), row);
+
+        int rowCount = box.getRowCount();
+        int columnCount = box.getColumnCount();
+        int transformCount = rowCount == columnCount ? 8 : 4;
+        for (int transform = 1; transform < transformCount; ++transform) {
+            int[] rowImage = rowImages(cellImages(transform, rowCount, columnCount));
+            if (rowImage != null)
+                rowImages.add(rowImage);
+        }
+
+        if (!rowImages.isEmpty())
+            piece = choosePiece();
+    }
+
+    /**
+     * Returns the image of every cell column under a transformation of the box.
+     *
+     * @return the images, or {@code null} if a free cell isn't mapped on a free cell
+     */
+    private int[] cellImages(int transform, int rowCount, int columnCount) {
+        Map<Position, Integer> columnOfPosition = new HashMap<Position, Integer>();
+        for (int i = 0; i < matrix.cellColumnCount; ++i)
+            columnOfPosition.put(matrix.columnPositions.get(i), i);
+
+        int[] cellImage = new int[matrix.cellColumnCount];
+        for (int i = 0; i < matrix.cellColumnCount; ++i) {
+            Integer image = columnOfPosition.get(transform(transform, matrix.columnPositions.get(i), rowCount, columnCount));
+            if (image == null)
+                return null;
+            cellImage[i] = image;
+        }
+        return cellImage;
+    }
+
+    /**
+     * Transforms a position of the box: 1 rotates by 180 degrees, 2 and 3 flip the rows and the columns, 4 and 5
+     * transpose along both diagonals and 6 and 7 rotate by 90 degrees. 4 to 7 require a square box.
+     */
+    private static Position transform(int transform, Position position, int rowCount, int columnCount) {
+        int r = position.getRow();
+        int c = position.getColumn();
+        switch (transform) {
+            case 1:
+                return new Position(rowCount - 1 - r, columnCount - 1 - c);
+            case 2:
+                return new Position(rowCount - 1 - r, c);
+            case 3:
+                return new Position(r, columnCount - 1 - c);
+            case 4:
+                return new Position(c, r);
+            case 5:
+                return new Position(columnCount - 1 - c, rowCount - 1 - r);
+            case 6:
+                return new Position(c, rowCount - 1 - r);
+            case 7:
+                return new Position(columnCount - 1 - c, r);
+            default:
+                return position;
+        }
+    }
+
+    /**
+     * Returns the image of every row, given the images of the cell columns.
+     *
+     * @return the images, or {@code null} if a cell mapping isn't a symmetry or some row has no image
+     */
+    private int[] rowImages(int[] cellImage) {
+        if (cellImage == null)
+            return null;
+
+        Map<List<Integer>, Integer> rowOfColumns = new HashMap<List<Integer>, Integer>();
+        for (int row = 0; row < matrix.rows.size(); ++row)
+            rowOfColumns.put(columnList(matrix.rows.get(row)), row);
+
+        int[] rowImage = new int[matrix.rows.size()];
+        for (int row = 0; row < matrix.rows.size(); ++row) {
+            int[] columns = matrix.rows.get(row).clone();
+            for (int i = 0; i < columns.length; ++i)
+                if (columns[i] < matrix.cellColumnCount)
+                    columns[i] = cellImage[columns[i]];
+            Arrays.sort(columns);
+            Integer image = rowOfColumns.get(columnList(columns));
+            if (image == null)
+                return null;
+            rowImage[row] = image;
+        }
+        return rowImage;
+    }
+
+    private static List<Integer> columnList(int[] columns) {
+        List<Integer> result = new ArrayList<Integer>(columns.length);
+        for (int column : columns)
+            result.add(column);
+        return result;
+    }
+
+    /**
+     * Chooses the first piece with multiplicity one of which no placement is mapped on itself, if every piece has to be
+     * used.
+     *
+     * @return the index of the piece, -1 if there is none
+     */
+    private int choosePiece() {
+        int area = 0;
+        int[] pieceSize = new int[matrix.pieces.size()];
+        for (int[] row : matrix.rows)
+            pieceSize[row[row.length - 1] - matrix.cellColumnCount] = row.length - 1;
+        for (int p = 0; p < pieceSize.length; ++p)
+            area += pieceSize[p] * matrix.multiplicity[matrix.cellColumnCount + p];
+        if (area != matrix.cellColumnCount)
+            return -1;
+
+        boolean[] fixed = new boolean[matrix.pieces.size()];
+        for (int[] rowImage : rowImages)
+            for (int row = 0; row < rowImage.length; ++row)
+                if (rowImage[row] == row)
+                    fixed[pieceOfRow(row)] = true;
+        for (int p = 0; p < fixed.length; ++p)
+            if (!fixed[p] && pieceSize[p] > 0 && matrix.multiplicity[matrix.cellColumnCount + p] == 1)
+                return p;
+        return -1;
+    }
+
+    private int pieceOfRow(int row) {
+        int[] columns = matrix.rows.get(row);
+        return columns[columns.length - 1] - matrix.cellColumnCount;
+    }
+
+    /**
+     * Returns the number of symmetries which are broken, including the identity. This is the factor by which the number
+     * of tilings is cut.
+     *
+     * @return the order of the symmetry group, 1 if the symmetry can't be broken
+     */
+    int getOrder() {
+        return piece == -1 ? 1 : rowImages.size() + 1;
+    }
+
+    /**
+     * Returns the matrix in which the broken piece only has the first placement of every orbit.
+     *
+     * @return the restricted matrix, or the full matrix if the symmetry can't be broken
+     */
+    Matrix restrict() {
+        if (piece == -1)
+            return matrix;
+
+        List<int[]> rows = new ArrayList<int[]>();
+        List<Placement> placementOfRow = new ArrayList<Placement>();
+        for (int row = 0; row < matrix.rows.size(); ++row) {
+            if (pieceOfRow(row) == piece && !isFirstOfOrbit(row))
+                continue;
+            rows.add(matrix.rows.get(row));
+            placementOfRow.add(matrix.placementOfRow.get(row));
+        }
+        return new Matrix(matrix.columnPositions, rows, placementOfRow, matrix.pieces, matrix.pieceMultiplicities());
+    }
+
+    private boolean isFirstOfOrbit(int row) {
+        for (int[] rowImage : rowImages)
+            if (rowImage[row] < row)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the symmetric images of a solution, not including the solution itself.
+     *
+     * @param solution the placements of a solution, which are placements of the matrix
+     * @param count    the number of placements in {@code solution}
+     * @return the placements of every image
+     */
+    Placement[][] images(Placement[] solution, int count) {
+        Placement[][] result = new Placement[getOrder() - 1][count];
+        for (int i = 0; i < result.length; ++i)
+            for (int j = 0; j < count; ++j)
+                result[i][j] = matrix.placementOfRow.get(rowImages.get(i)[rowOfPlacement.get(solution[j])]);
+        return result;
+    }
+}
@@ -0,0 +1,15 @@
+package solvers;
+
+/**
+ * Defines how a solver deals with the symmetries of the box
+ *
+ * With {@code NONE} every tiling is searched. {@code CANONICAL} restricts one piece, so only one tiling of every group
+ * of symmetric tilings is searched and reported. {@code EXPAND} searches the same as {@code CANONICAL}, but reports
+ * every found tiling together with its symmetric images.
+ *
+ * @author Robert Leenders
+ * @see Symmetry
+ */
+public enum SymmetryBreaking {
+    NONE, CANONICAL, EXPAND
+}
@@ -0,0 +1,162 @@
+package solvers;
+
+import java.util.Arrays;
+
+/**
+ * Bounded table of the solution counts of subproblems, so a counting search doesn't count the same subproblem twice.
+ *
+ * A subproblem is identified by its active columns with the number of rows they still need, hashed into two independent
+ * 64-bit keys; a false hit needs both to collide. The table is two-way set associative: a new entry replaces an empty
+ * or equal entry of its set, or else the entry whose subproblem took the fewest nodes to count. Its size is fixed from
+ * a memory bound when it is constructed.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX#setTranspositionTable(TranspositionTable)
+ */
+public class TranspositionTable {
+    /**
+     * Bytes of an entry: two keys, a count and the work
+     */
+    static final int ENTRY_BYTES = 8 + 8 + 8 + 4;
+    private final long[] keys1;
+    private final long[] keys2;
+    private final long[] counts;
+    /**
+     * Number of nodes it took to count the subproblem of every entry, 0 for an empty entry
+     */
+    private final int[] work;
+    /**
+     * Mask of a set index
+     */
+    private final int setMask;
+    private long lookups = 0;
+    private long hits = 0;
+    private long stores = 0;
+    private long evictions = 0;
+
+
+    /**
+     * Constructs a table which takes at most {@code maxBytes} of memory.
+     *
+     * @param maxBytes the memory bound in bytes
+     * @throws IllegalArgumentException if {@code maxBytes} is too small for a single set
+     */
+    public TranspositionTable(long maxBytes) throws IllegalArgumentException {
+        long entries = Long.highestOneBit(Math.min(maxBytes / ENTRY_BYTES, 1L << 30));
+        if (entries < 2)
+            throw new IllegalArgumentException("maxBytes is too small; maxBytes:" + maxBytes);
+        keys1 = new long[(int) entries];
+        keys2 = new long[(int) entries];
+        counts = new long[(int) entries];
+        work = new int[(int) entries];
+        setMask = (int) entries / 2 - 1;
+    }
+
+    /**
+     * Looks up the count of a subproblem.
+     *
+     * @param key1 the first key of the subproblem
+     * @param key2 the second key of the subproblem
+     * @return the count, -1 if it isn't in the table
+     */
+    long get(long key1, long key2) {
+        ++lookups;
+        int entry = 2 * ((int) key1 & setMask);
+        for (int way = 0; way < 2; ++way, ++entry) {
+            if (work[entry] != 0 && keys1[entry] == key1 && keys2[entry] == key2) {
+                ++hits;
+                return counts[entry];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the count of a subproblem.
+     *
+     * @param key1  the first key of the subproblem
+     * @param key2  the second key of the subproblem
+     * @param count the number of solutions
+     * @param nodes the number of nodes it took to count them
+     */
+    void put(long key1, long key2, long count, long nodes) {
+        int first = 2 * ((int) key1 & setMask);
+        int entry;
+        if (work[first] == 0 || (keys1[first] == key1 && keys2[first] == key2))
+            entry = first;
+        else if (work[first + 1] == 0 || (keys1[first + 1] == key1 && keys2[first + 1] == key2))
+            entry = first + 1;
+        else {
+            entry = work[first] <= work[first + 1] ? first : first + 1;
+            ++evictions;
+        }
+
+        ++stores;
+        keys1[entry] = key1;
+        keys2[entry] = key2;
+        counts[entry] = count;
+        work[entry] = (int) Math.max(1, Math.min(nodes, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Empties the table and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(work, 0);
+        lookups = hits = stores = evictions = 0;
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return work.length;
+    }
+
+    /**
+     * Returns the memory taken by the entries.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        return (long) work.length * ENTRY_BYTES;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the fraction of the lookups which found their subproblem.
+     *
+     * @return the hit rate, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a string representation of the statistics of this table.
+     *
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable{capacity=%d, lookups=%d, hits=%d (%.1f%%), stores=%d, evictions=%d}",
+                getCapacity(), lookups, hits, 100 * getHitRate(), stores, evictions);
+    }
+}
@@ -0,0 +1,97 @@
+package solvers;
+
+/**
+ * The estimated size of a search tree, made by {@link TreeSizeEstimator}. Every estimate comes with a 95% confidence
+ * interval, its mean plus or minus 1.96 standard errors, cut off at 0.
+ *
+ * @author Robert Leenders
+ */
+public class TreeSizeEstimate {
+    /**
+     * Number of standard errors on either side of the mean of a 95% confidence interval
+     */
+    private static final double Z = 1.96;
+    private final int probes;
+    private final double nodes;
+    private final double nodesError;
+    private final double solutions;
+    private final double solutionsError;
+    private final double nanosPerNode;
+
+
+    /**
+     * Constructs an estimate.
+     *
+     * @param probes         the number of probes
+     * @param nodes          the estimated number of nodes
+     * @param nodesError     the standard error of {@code nodes}
+     * @param solutions      the estimated number of solutions
+     * @param solutionsError the standard error of {@code solutions}
+     * @param nanosPerNode   the time per node in nanoseconds
+     */
+    TreeSizeEstimate(int probes, double nodes, double nodesError, double solutions, double solutionsError, double nanosPerNode) {
+        this.probes = probes;
+        this.nodes = nodes;
+        this.nodesError = nodesError;
+        this.solutions = solutions;
+        this.solutionsError = solutionsError;
+        this.nanosPerNode = nanosPerNode;
+    }
+
+    public int getProbes() {
+        return probes;
+    }
+
+    public double getNodes() {
+        return nodes;
+    }
+
+    public double getNodesLow() {
+        return Math.max(0, nodes - Z * nodesError);
+    }
+
+    public double getNodesHigh() {
+        return nodes + Z * nodesError;
+    }
+
+    public double getSolutions() {
+        return solutions;
+    }
+
+    public double getSolutionsLow() {
+        return Math.max(0, solutions - Z * solutionsError);
+    }
+
+    public double getSolutionsHigh() {
+        return solutions + Z * solutionsError;
+    }
+
+    /**
+     * Returns the estimated time of a full search.
+     *
+     * @return the time in seconds
+     */
+    public double getSeconds() {
+        return nodes * nanosPerNode / 1e9;
+    }
+
+    public double getSecondsLow() {
+        return getNodesLow() * nanosPerNode / 1e9;
+    }
+
+    public double getSecondsHigh() {
+        return getNodesHigh() * nanosPerNode / 1e9;
+    }
+
+    /**
+     * Returns a string representation of this estimate, with the confidence intervals.
+     *
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("%.3g nodes [%.3g, %.3g], %.3g solutions [%.3g, %.3g], %.3g s [%.3g, %.3g] (%d probes)",
+                nodes, getNodesLow(), getNodesHigh(), solutions, getSolutionsLow(), getSolutionsHigh(),
+                getSeconds(), getSecondsLow(), getSecondsHigh(), probes);
+    }
+}
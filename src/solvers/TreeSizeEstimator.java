@@ -0,0 +1,240 @@
+package solvers;
+
+import model.Puzzle;
+import textio.PuzzleReader;
+
+import java.io.FileNotFoundException;
+import java.util.Random;
+
+/**
+ * Estimates the size of the DLX search tree of a puzzle with Knuth's estimator, before committing to a full search.
+ *
+ * A probe walks from the root to a leaf, choosing the columns like {@link ArrayDLX} and a uniformly random row of every
+ * chosen column. With {@code d1, d2, ...} the numbers of rows on the way, {@code d1 + d1 d2 + d1 d2 d3 + ...} is an
+ * unbiased estimate of the number of visited nodes, and {@code d1 d2 ... dk} of the number of solutions when the leaf is
+ * a solution (0 otherwise). The mean of many probes is the estimate; its standard error gives a 95% confidence interval.
+ * The estimates of single probes have a heavy tail, so the interval of a few probes can be too narrow.
+ *
+ * The time is estimated from the time per node of the first {@code CALIBRATION_NODES} nodes of a real search, which is
+ * about the time per node of {@code ArrayDLX.countAll()}; reporting solutions costs extra.
+ *
+ * With symmetry breaking set the tree is that of {@link ArrayDLX} with the same symmetry breaking, the search of the
+ * restricted matrix.
+ *
+ * @author Robert Leenders
+ * @see TreeSizeEstimate
+ */
+public class TreeSizeEstimator {
+    private final Puzzle puzzle;
+    private final Matrix matrix;
+    /**
+     * The dancing links, in their initial state between probes
+     */
+    private Links links;
+    private SymmetryBreaking symmetryBreaking = SymmetryBreaking.NONE;
+    /**
+     * The symmetry which is broken, {@code null} if the symmetries aren't broken
+     */
+    private Symmetry symmetry;
+    /**
+     * The chosen column and row of every level of a probe
+     */
+    private int[] columns, nodes;
+    private Random random;
+    /**
+     * Number of nodes the real search visits to measure the time per node
+     */
+    private static final long CALIBRATION_NODES = 200000;
+    /**
+     * Number of nodes the calibration search may still visit
+     */
+    private long calibrationBudget;
+    private volatile boolean stopEstimate = false;
+
+
+    /**
+     * Constructs an estimator for the given puzzle.
+     *
+     * @param puzzle the puzzle
+     */
+    public TreeSizeEstimator(Puzzle puzzle) {
+        this(puzzle, new Random());
+    }
+
+    /**
+     * Constructs an estimator for the given puzzle with the given seed, so an estimate can be repeated.
+     *
+     * @param puzzle the puzzle
+     * @param seed   the seed of the random generator
+     */
+    public TreeSizeEstimator(Puzzle puzzle, long seed) {
+        this(puzzle, new Random(seed));
+    }
+
+    private TreeSizeEstimator(Puzzle puzzle, Random random) {
+        this.puzzle = puzzle;
+        matrix = Matrix.build(puzzle);
+        links = new Links(matrix);
+        columns = new int[matrix.cellColumnCount + 1];
+        nodes = new int[matrix.cellColumnCount + 1];
+        this.random = random;
+    }
+
+    /**
+     * Runs the given number of probes and combines them into an estimate. When the estimator is stopped the probes so
+     * far are combined, without a time per node.
+     *
+     * @param probes the number of probes
+     * @return the estimate, {@code null} if the estimator was stopped before two probes
+     * @throws IllegalArgumentException if {@code probes <= 1}
+     */
+    public TreeSizeEstimate estimate(int probes) throws IllegalArgumentException {
+        if (probes <= 1)
+            throw new IllegalArgumentException("probes is below or equal to 1; probes:" + probes);
+
+        double nodeSum = 0, nodeSquareSum = 0, solutionSum = 0, solutionSquareSum = 0;
+        for (int i = 0; i < probes; ++i) {
+            if (stopEstimate) {
+                if (i <= 1)
+                    return null;
+                return new TreeSizeEstimate(i, nodeSum / i, standardError(nodeSum, nodeSquareSum, i),
+                        solutionSum / i, standardError(solutionSum, solutionSquareSum, i), 0);
+            }
+            double[] estimate = probe();
+            nodeSum += estimate[0];
+            nodeSquareSum += estimate[0] * estimate[0];
+            solutionSum += estimate[1];
+            solutionSquareSum += estimate[1] * estimate[1];
+        }
+
+        calibrationBudget = CALIBRATION_NODES;
+        long start = System.nanoTime();
+        calibrate();
+        long calibrationNodes = CALIBRATION_NODES - calibrationBudget;
+        double nanosPerNode = calibrationNodes == 0 ? 0 : (double) (System.nanoTime() - start) / calibrationNodes;
+
+        return new TreeSizeEstimate(probes, nodeSum / probes, standardError(nodeSum, nodeSquareSum, probes),
+                solutionSum / probes, standardError(solutionSum, solutionSquareSum, probes), nanosPerNode);
+    }
+
+    public SymmetryBreaking getSymmetryBreaking() {
+        return symmetryBreaking;
+    }
+
+    /**
+     * Sets how the symmetries of the box are dealt with, as in {@link ArrayDLX#setSymmetryBreaking(SymmetryBreaking)}.
+     * With {@code EXPAND} every found tiling counts as its symmetric images.
+     *
+     * @param symmetryBreaking the way to deal with symmetries
+     * @throws IllegalArgumentException if {@code symmetryBreaking} is {@code null}
+     */
+    public void setSymmetryBreaking(SymmetryBreaking symmetryBreaking) throws IllegalArgumentException {
+        if (symmetryBreaking == null)
+            throw new IllegalArgumentException("symmetryBreaking is null");
+        this.symmetryBreaking = symmetryBreaking;
+        if (symmetryBreaking == SymmetryBreaking.NONE) {
+            symmetry = null;
+            links = new Links(matrix);
+        } else {
+            symmetry = new Symmetry(matrix, puzzle.getBox());
+            links = new Links(symmetry.restrict());
+        }
+    }
+
+    private static double standardError(double sum, double squareSum, int n) {
+        double mean = sum / n;
+        double variance = Math.max(0, (squareSum - n * mean * mean) / (n - 1));
+        return Math.sqrt(variance / n);
+    }
+
+    /**
+     * Runs the search of {@code ArrayDLX.countAll()} until it has visited {@code calibrationBudget} nodes.
+     */
+    private void calibrate() {
+        if (links.isSolved())
+            return;
+
+        int c = links.chooseColumn();
+        links.beginColumn(c);
+        for (int r = links.down[c]; r != c && calibrationBudget > 0 && !stopEstimate; r = links.down[r]) {
+            --calibrationBudget;
+            links.selectRow(c, r);
+            calibrate();
+            links.unselectRow(c, r);
+        }
+        links.endColumn(c);
+    }
+
+    /**
+     * Walks from the root to a leaf and undoes the walk.
+     *
+     * @return the estimated number of nodes and the estimated number of solutions
+     */
+    private double[] probe() {
+        double nodeEstimate = 0;
+        double weight = 1;
+        int depth = 0;
+        while (!links.isSolved()) {
+            int c = links.chooseColumn();
+            int degree = 0;
+            for (int r = links.down[c]; r != c; r = links.down[r])
+                ++degree;
+            if (degree == 0)
+                break;
+
+            // Like in the search, the rows before the chosen one have been tried and are skipped
+            links.beginColumn(c);
+            int r = links.down[c];
+            for (int skip = random.nextInt(degree); skip > 0; --skip) {
+                links.skipRow(c, r);
+                r = links.down[r];
+            }
+            links.selectRow(c, r);
+            columns[depth] = c;
+            nodes[depth] = r;
+            ++depth;
+
+            weight *= degree;
+            nodeEstimate += weight;
+        }
+        double solutionEstimate = links.isSolved() ? weight : 0;
+        if (symmetryBreaking == SymmetryBreaking.EXPAND)
+            solutionEstimate *= symmetry.getOrder();
+
+        for (int level = depth - 1; level >= 0; --level) {
+            links.unselectRow(columns[level], nodes[level]);
+            links.endColumn(columns[level]);
+        }
+        return new double[]{nodeEstimate, solutionEstimate};
+    }
+
+    /**
+     * Stops a running estimate, from any thread.
+     */
+    public void stop() {
+        stopEstimate = true;
+    }
+
+    /**
+     * Prints an estimate for every given puzzle file.
+     *
+     * Usage: {@code java solvers.TreeSizeEstimator [-probes n] puzzle.txt ...}
+     *
+     * @param args the number of probes and the puzzle files
+     */
+    public static void main(String[] args) {
+        int probes = 10000;
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("-probes")) {
+                probes = Integer.parseInt(args[++i]);
+                continue;
+            }
+            try {
+                Puzzle puzzle = PuzzleReader.read(args[i]);
+                System.out.println(args[i] + ": " + new TreeSizeEstimator(puzzle).estimate(probes));
+            } catch (FileNotFoundException e) {
+                System.err.println("File not found: " + args[i]);
+            }
+        }
+    }
+}
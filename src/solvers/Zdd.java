@@ -0,0 +1,304 @@
+package solvers;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Zero-suppressed decision diagram of a set of solutions, as built by {@link ArrayDLX#buildZdd()}.
+ *
+ * Every node has a variable, which is the index of a row of the matrix, and two children: {@code hi} holds the
+ * solutions with the row and {@code lo} those without it. Node {@link #BOTTOM} is the empty set and node {@link #TOP}
+ * the set with only the empty solution, so every path from the root to {@code TOP} is a solution made of the variables
+ * at which it goes {@code hi}. A node is never made with {@code hi} set to {@code BOTTOM}, so every node leads to a
+ * solution.
+ *
+ * Like in Knuth's DXZ the variables are in the order of the search, not in one global order, so two diagrams of the
+ * same set of solutions can differ; counting, sampling and enumerating don't need the order. The children of a node are
+ * always made before it, so the nodes are stored in the arrays in a bottom-up order.
+ *
+ * @author Robert Leenders
+ * @see ArrayDLX#buildZdd()
+ */
+public class Zdd implements Iterable<int[]> {
+    /**
+     * The empty set of solutions
+     */
+    public static final int BOTTOM = 0;
+    /**
+     * The set with only the empty solution
+     */
+    public static final int TOP = 1;
+    private static final int FILE_MAGIC = 0x50535A44;
+    private static final int FILE_VERSION = 1;
+    /**
+     * The number of rows of the matrix, every variable is below it
+     */
+    private final int variableCount;
+    /**
+     * The variable and the children of every node, indexed by node
+     */
+    private int[] variable, lo, hi;
+    /**
+     * Number of nodes, including {@code BOTTOM} and {@code TOP}
+     */
+    private int size = 2;
+    private int root = BOTTOM;
+    /**
+     * The number of solutions below every node, {@code null} until they are counted
+     */
+    private long[] counts;
+
+
+    /**
+     * Constructs a diagram with only {@code BOTTOM} and {@code TOP}, of which the root is {@code BOTTOM}.
+     *
+     * @param variableCount the number of rows of the matrix
+     */
+    Zdd(int variableCount) {
+        this.variableCount = variableCount;
+        variable = new int[16];
+        lo = new int[16];
+        hi = new int[16];
+        variable[BOTTOM] = variable[TOP] = -1;
+    }
+
+    /**
+     * Adds a node, or returns {@code lo} if {@code hi} is {@code BOTTOM}.
+     *
+     * @param variable the row of the node
+     * @param lo       the node of the solutions without the row
+     * @param hi       the node of the rest of the solutions with the row
+     * @return the node
+     */
+    int add(int variable, int lo, int hi) {
+        if (hi == BOTTOM)
+            return lo;
+        if (size == this.variable.length) {
+            this.variable = Arrays.copyOf(this.variable, 2 * size);
+            this.lo = Arrays.copyOf(this.lo, 2 * size);
+            this.hi = Arrays.copyOf(this.hi, 2 * size);
+        }
+        this.variable[size] = variable;
+        this.lo[size] = lo;
+        this.hi[size] = hi;
+        counts = null;
+        return size++;
+    }
+
+    int getRoot() {
+        return root;
+    }
+
+    void setRoot(int root) {
+        this.root = root;
+        counts = null;
+    }
+
+    /**
+     * Returns the number of nodes, including {@code BOTTOM} and {@code TOP}.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rows of the matrix of which this diagram was built.
+     *
+     * @return the number of variables
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Returns the number of solutions, counted once in a single pass over the nodes.
+     *
+     * @return the number of solutions
+     */
+    public long count() {
+        return counts()[root];
+    }
+
+    private long[] counts() {
+        if (counts == null) {
+            counts = new long[size];
+            counts[TOP] = 1;
+            for (int node = 2; node < size; ++node)
+                counts[node] = counts[lo[node]] + counts[hi[node]];
+        }
+        return counts;
+    }
+
+    /**
+     * Returns a solution chosen uniformly at random: at every node the walk goes {@code hi} with a chance in proportion
+     * to the number of solutions below it.
+     *
+     * @param random the random generator
+     * @return the rows of the solution, or {@code null} if there is none
+     */
+    public int[] sample(Random random) {
+        long[] counts = counts();
+        if (counts[root] == 0)
+            return null;
+
+        int[] result = new int[16];
+        int length = 0;
+        int node = root;
+        while (node != TOP) {
+            if (randomBelow(random, counts[node]) < counts[hi[node]]) {
+                if (length == result.length)
+                    result = Arrays.copyOf(result, 2 * length);
+                result[length++] = variable[node];
+                node = hi[node];
+            } else {
+                node = lo[node];
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Returns a uniform random number in {@code 0..bound - 1}.
+     */
+    private static long randomBelow(Random random, long bound) {
+        long bits, value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    /**
+     * Returns an iterator over the solutions, in the order in which the search found them. Every solution is made when
+     * it is asked for, so the solutions are never all in memory.
+     *
+     * @return iterator over the rows of every solution
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new Iterator<int[]>() {
+            /**
+             * Pending nodes with the length of the path to them
+             */
+            private int[] nodes = new int[16], lengths = new int[16];
+            private int top = 0;
+            /**
+             * The rows of the current path
+             */
+            private int[] path = new int[16];
+            private int[] next = advance(root, 0);
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public int[] next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                int[] result = next;
+                next = advance(BOTTOM, 0);
+                return result;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            /**
+             * Walks down from {@code node} to the next solution, going {@code hi} first and keeping {@code lo} for
+             * later.
+             */
+            private int[] advance(int node, int length) {
+                while (true) {
+                    if (node == TOP)
+                        return Arrays.copyOf(path, length);
+                    if (node == BOTTOM) {
+                        if (top == 0)
+                            return null;
+                        node = nodes[--top];
+                        length = lengths[top];
+                        continue;
+                    }
+                    if (top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * top);
+                        lengths = Arrays.copyOf(lengths, 2 * top);
+                    }
+                    nodes[top] = lo[node];
+                    lengths[top++] = length;
+                    if (length == path.length)
+                        path = Arrays.copyOf(path, 2 * length);
+                    path[length++] = variable[node];
+                    node = hi[node];
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the diagram to a file: a header, the number of variables and nodes, the root and the variable and
+     * children of every node but {@code BOTTOM} and {@code TOP}. It is written next to {@code file} first and then
+     * moved over it.
+     *
+     * @param file the file
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            out.writeInt(variableCount);
+            out.writeInt(size);
+            out.writeInt(root);
+            for (int node = 2; node < size; ++node) {
+                out.writeInt(variable[node]);
+                out.writeInt(lo[node]);
+                out.writeInt(hi[node]);
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a diagram written by {@link #write(File)}.
+     *
+     * @param file the file
+     * @return the diagram
+     * @throws IOException if the file can't be read or isn't a valid diagram
+     */
+    public static Zdd read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC || in.readByte() != FILE_VERSION)
+                throw new IOException("Not a ZDD file: " + file);
+            Zdd result = new Zdd(in.readInt());
+            int size = in.readInt();
+            int root = in.readInt();
+            if (size < 2 || root < 0 || root >= size)
+                throw new IOException("Corrupt ZDD file: " + file);
+            for (int node = 2; node < size; ++node) {
+                int variable = in.readInt();
+                int lo = in.readInt();
+                int hi = in.readInt();
+                if (variable < 0 || variable >= result.variableCount || lo < 0 || lo >= node || hi <= BOTTOM || hi >= node)
+                    throw new IOException("Corrupt ZDD file: " + file);
+                result.add(variable, lo, hi);
+            }
+            result.setRoot(root);
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -50,6 +50,34 @@ public class PuzzleReader {
         return read(file);
     }
 
+    /**
+     * Returns whether a file looks like a puzzle file: a name followed by the names of a box file and a pieces file
+     * which exist next to it. Box and pieces files themselves are not puzzle files.
+     *
+     * @param file the file
+     * @return {@code true} if the file is a puzzle file; false otherwise
+     */
+    public static boolean isPuzzleFile(File file) {
+        if (!file.isFile())
+            return false;
+        try {
+            Scanner in = new Scanner(file);
+            try {
+                String[] tokens = new String[3];
+                for (int i = 0; i < tokens.length; ++i) {
+                    if (!in.hasNext())
+                        return false;
+                    tokens[i] = in.next();
+                }
+                return !in.hasNext() && new File(file.getParent(), tokens[1]).isFile() && new File(file.getParent(), tokens[2]).isFile();
+            } finally {
+                in.close();
+            }
+        } catch (FileNotFoundException e) {
+            return false;
+        }
+    }
+
     /**
      * Reads a bag with pieces from a file
      *
@@ -65,8 +93,13 @@ public class PuzzleReader {
     /**
      * Reads a bag with pieces from scanner {@code in}
      *
+     * The line of a piece holds its name, color and multiplicity, optionally followed by a {@link PieceSymmetry}. Every
+     * shape of the piece is a base shape of which the images under the symmetry are added; without a symmetry the
+     * shapes are taken as given. Shapes which are the same orientation are added once.
+     *
      * @param in the scanner from which the bag is constructed
      * @return constructed bag with pieces from the info inside the scanner
+     * @throws IllegalArgumentException if the symmetry of a piece is unknown
      */
     private static BagOfPieces readPieces(Scanner in) {
         BagOfPieces bagOfPieces = new BagOfPieces();
@@ -78,7 +111,7 @@ public class PuzzleReader {
             String nameOfPiece = in.next();
             Color colorOfPiece = ColorConverter.fromName(in.next());
             int multiplicityOfPiece = in.nextInt();
-            in.nextLine(); // Skip to next line
+            PieceSymmetry symmetry = readSymmetry(nameOfPiece, in.nextLine().trim());
             Piece piece = new Piece(nameOfPiece, colorOfPiece, multiplicityOfPiece);
             line = in.nextLine();
             while (line != null && line.charAt(0) == '-') {
@@ -95,13 +128,22 @@ public class PuzzleReader {
                     else
                         line = null;
                 }
-                piece.addOrientation(orientation);
+                piece.addOrientations(orientation, symmetry);
             }
             bagOfPieces.add(piece);
         }
         return bagOfPieces;
     }
 
+    private static PieceSymmetry readSymmetry(String nameOfPiece, String text) throws IllegalArgumentException {
+        if (text.length() == 0)
+            return PieceSymmetry.AS_GIVEN;
+        for (PieceSymmetry symmetry : PieceSymmetry.values())
+            if (symmetry.name().equalsIgnoreCase(text))
+                return symmetry;
+        throw new IllegalArgumentException("Unknown symmetry of piece " + nameOfPiece + "; symmetry:" + text);
+    }
+
     /**
      * Reads a box from a file
      *
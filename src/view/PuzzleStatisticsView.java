@@ -3,6 +3,7 @@ package view;
 import model.IllegalRequestException;
 import model.Puzzle;
 import model.PuzzleStatistics;
+import solvers.Solvability;
 
 import java.awt.*;
 import java.text.MessageFormat;
@@ -30,6 +31,10 @@ public class PuzzleStatisticsView {
      * The width of this view
      */
     private int width = 430;
+    /**
+     * Whether the box can be completed, {@code null} if it isn't known
+     */
+    private Solvability solvability;
 
     /**
      * Constructs a new puzzlestatisticsview for the given puzzle at the given location.
@@ -51,6 +56,15 @@ public class PuzzleStatisticsView {
         puzzleStatistics = new PuzzleStatistics(puzzle);
     }
 
+    /**
+     * Sets whether the box can be completed, which is shown below the statistics.
+     *
+     * @param solvability whether the box can be completed, {@code null} to show nothing
+     */
+    public void setSolvability(Solvability solvability) {
+        this.solvability = solvability;
+    }
+
     /**
      * Returns the height of this view
      *
@@ -97,5 +111,8 @@ public class PuzzleStatisticsView {
             g.drawString(MessageFormat.format(bundle.getString("PuzzleStatisticsView.numPlacementsPerFoundSolutionStdDev.text"), puzzleStatistics.getStdDevPlacementsForSolution()), topLeft.x, topLeft.y + heightSpacing * ++numDrawing);
         } catch (IllegalRequestException ignored) {
         }
+
+        if (solvability != null)
+            g.drawString(bundle.getString("PuzzleStatisticsView." + solvability.name().toLowerCase() + ".text"), topLeft.x, topLeft.y + heightSpacing * ++numDrawing);
     }
 }
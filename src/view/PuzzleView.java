@@ -5,6 +5,9 @@ import model.BoxListener;
 import model.Placement;
 import model.Position;
 import model.Puzzle;
+import solvers.Solvability;
+import solvers.SolvabilityChecker;
+import solvers.SolvabilityListener;
 
 import javax.swing.*;
 import java.awt.*;
@@ -18,6 +21,10 @@ import java.util.ResourceBundle;
  * @author Robert Leenders
  */
 public class PuzzleView extends JComponent implements BoxListener {
+    /**
+     * The maximum time of the search of a solvability check, in milliseconds
+     */
+    private static final long SOLVABILITY_TIME_BUDGET = 250;
     /**
      * The view which displays the box
      */
@@ -50,6 +57,10 @@ public class PuzzleView extends JComponent implements BoxListener {
      * A boolean which indicates whether the last action is performed by the user
      */
     private boolean lastActionByUser = false;
+    /**
+     * Checks whether the box can still be completed after a placement by the user
+     */
+    private final SolvabilityChecker solvabilityChecker = new SolvabilityChecker(SOLVABILITY_TIME_BUDGET);
 
     /**
      * The preferred dimension of this view
@@ -134,6 +145,7 @@ public class PuzzleView extends JComponent implements BoxListener {
         // Drag in progress, so end it.
         lastActionByUser = true;
         dragState.endDrag(point);
+        lastActionByUser = false;
         dragState = null;
         setCursor(Cursor.getDefaultCursor());
         repaint();
@@ -235,8 +247,10 @@ public class PuzzleView extends JComponent implements BoxListener {
     public void placementAdded(Placement placement) {
         boxView.addPlacement(placement);
         repaint();
-        if (lastActionByUser)
+        if (lastActionByUser) {
             congratulateIfPuzzleIsUniquelySolved();
+            checkSolvability();
+        }
         lastActionByUser = false;
         mainFrame.updateMenu();
     }
@@ -263,6 +277,30 @@ public class PuzzleView extends JComponent implements BoxListener {
     public void placementRemoved(Placement placement) {
         boxView.removePlacement(placement);
         repaint();
+        if (lastActionByUser)
+            checkSolvability();
+        lastActionByUser = false;
+    }
+
+    /**
+     * Starts a check whether the box can still be completed. Until its result is known nothing is shown; the result is
+     * only shown if the box hasn't changed since.
+     */
+    private void checkSolvability() {
+        statisticsView.setSolvability(null);
+        final Puzzle checkedPuzzle = puzzle;
+        solvabilityChecker.checkLater(puzzle, new SolvabilityListener() {
+            public void solvabilityChecked(final long fingerprint, final Solvability solvability) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (puzzle == checkedPuzzle && puzzle.getBox().getFingerprint() == fingerprint) {
+                            statisticsView.setSolvability(solvability);
+                            repaint();
+                        }
+                    }
+                });
+            }
+        });
     }
 
     /**
@@ -285,6 +323,7 @@ public class PuzzleView extends JComponent implements BoxListener {
         if (statisticsView != null)
             statisticsView.setPuzzle(puzzle);
         this.puzzle = puzzle;
+        solvabilityChecker.clearCache();
         initComponents();
         mainFrame.updateMenu();
     }
@@ -375,7 +414,10 @@ public class PuzzleView extends JComponent implements BoxListener {
                     } else if (boxView.pointToPosition(point) == placementView.getPlacement().getAnchorPosition()) {
                         cancel(); // Same position as before
                     } else if (boxView.containsPoint(point)) {
+                        // The removal is half of the move, only the box after the move is checked
+                        lastActionByUser = false;
                         puzzle.removePlacement(placementView.getPlacement());
+                        lastActionByUser = true;
                         Position startPosition = boxView.pointToPosition(start);
                         Position oldAnchorPosition = placementView.getPlacement().getAnchorPosition();
                         Position anchorPosition = boxView.pointToPosition(point);
@@ -0,0 +1,92 @@
+package gui;
+
+import junit.framework.TestCase;
+import model.Placement;
+import model.Puzzle;
+import solvers.ArrayDLX;
+import solvers.SolverListener;
+import textio.PuzzleReader;
+
+import javax.swing.*;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that PlacementMirror only shows the latest placements of a solver.
+ *
+ * @author Robert Leenders
+ */
+public class PlacementMirrorTest extends TestCase {
+    private Puzzle solverPuzzle;
+    private Puzzle view;
+    private List<Placement> solution;
+
+    public void setUp() throws FileNotFoundException {
+        Puzzle puzzle = PuzzleReader.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        final ArrayDLX arrayDLX = new ArrayDLX(puzzle.copy(false));
+        solution = new ArrayList<Placement>();
+        arrayDLX.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                if (solution.isEmpty())
+                    solution.addAll(puzzle.getBox().getPlacements());
+                arrayDLX.stop();
+            }
+        });
+        arrayDLX.findAll();
+        solverPuzzle = puzzle.copy(false);
+        view = puzzle.copy(false);
+    }
+
+    public void testCoalesce() {
+        PlacementMirror mirror = new PlacementMirror(solverPuzzle, view, 30);
+        for (Placement placement : solution)
+            mirror.placementAdded(placement);
+        mirror.showLatest();
+        assertEquals("Only the placements of the first frame should be shown", 1, view.getBox().getPlacements().size());
+
+        mirror.showLatest();
+        assertEquals("Nothing should change without new placements", 1, view.getBox().getPlacements().size());
+
+        mirror.placementRemoved(solution.get(solution.size() - 1));
+        mirror.placementRemoved(solution.get(solution.size() - 2));
+        mirror.showLatest();
+        assertEquals("The placements of the next frame should be shown", solution.subList(0, solution.size() - 1), view.getBox().getPlacements());
+    }
+
+    public void testFinish() throws Exception {
+        PlacementMirror mirror = new PlacementMirror(solverPuzzle, view, 30);
+        for (Placement placement : solution)
+            mirror.placementAdded(placement);
+        mirror.finish();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+            }
+        });
+
+        assertEquals("The final placements should be shown", 12, view.getBox().getPlacements().size());
+        assertTrue("The view should be solved", view.isSolved());
+    }
+
+    /**
+     * The placements in the puzzle of the solver are there from the start.
+     */
+    public void testInitialPlacements() {
+        solverPuzzle.addPlacement(solution.get(0));
+        view.addPlacement(solution.get(0));
+        PlacementMirror mirror = new PlacementMirror(solverPuzzle, view, 30);
+        mirror.placementAdded(solution.get(1));
+        mirror.showLatest();
+
+        assertEquals("Both placements should be shown", 2, view.getBox().getPlacements().size());
+    }
+
+    public void testFrameRate() {
+        try {
+            new PlacementMirror(solverPuzzle, view, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
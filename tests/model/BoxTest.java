@@ -179,6 +179,101 @@ public class BoxTest extends TestCase {
         assertEquals("String representation of the boxes must be equal", expected, box.toString());
     }
 
+    /**
+     * Tests if the number of free cells is updated by adding and removing placements
+     */
+    public void testGetFreeCellCount() {
+        ArrayList<Position> blockedPositions = new ArrayList<Position>();
+        blockedPositions.add(new Position(2, 2));
+        Box box = new Box(3, 3, blockedPositions);
+        assertEquals("Blocked cells are not free", 8, box.getFreeCellCount());
+        box.addPlacement(new Placement(new Position(0, 0), Fixture.o2, Fixture.p));
+        assertEquals("Occupied cells are not free", 6, box.getFreeCellCount());
+        box.removePlacement(new Position(0, 1));
+        assertEquals("Removed placements free their cells", 8, box.getFreeCellCount());
+    }
+
+    /**
+     * Tests if equal contents have an equal fingerprint, independent of the order of the placements
+     */
+    public void testGetFingerprint() {
+        assertEquals("Equal boxes must have equal fingerprints", Fixture.x.getFingerprint(), Fixture.z.getFingerprint());
+        assertFalse("Unequal boxes should have unequal fingerprints", Fixture.x.getFingerprint() == Fixture.notx.getFingerprint());
+
+        Box box = new Box(3, 3);
+        long empty = box.getFingerprint();
+        box.addPlacement(new Placement(new Position(0, 0), Fixture.o2, Fixture.p));
+        assertFalse("Adding a placement should change the fingerprint", empty == box.getFingerprint());
+        box.removePlacement(new Position(0, 0));
+        assertEquals("Removing the placement must restore the fingerprint", empty, box.getFingerprint());
+    }
+
+    /**
+     * Tests if the cells show the blocked positions and the placements, and keep them after the box changes
+     */
+    public void testGetCells() {
+        ArrayList<Position> blockedPositions = new ArrayList<Position>();
+        blockedPositions.add(new Position(2, 2));
+        Box box = new Box(3, 3, blockedPositions);
+        Placement placement = new Placement(new Position(0, 0), Fixture.o2, Fixture.p);
+        box.addPlacement(placement);
+        Cell cell = box.get(0, 1);
+
+        assertEquals("Occupied cell has the wrong state", CellState.OCCUPIED, box.getState(0, 1));
+        assertEquals("Occupied cell has the wrong placement", placement, cell.getPlacement());
+        assertEquals("Blocked cell has the wrong state", CellState.BLOCKED, box.getState(2, 2));
+        assertEquals("Free cell has the wrong state", CellState.FREE, box.get(1, 1).getState());
+
+        int rows = 0;
+        for (java.util.List<Cell> row : box) {
+            assertEquals("Row has the wrong number of cells", 3, row.size());
+            for (int j = 0; j < row.size(); ++j)
+                assertEquals("Iterated cell differs", box.get(rows, j), row.get(j));
+            ++rows;
+        }
+        assertEquals("Wrong number of rows", 3, rows);
+
+        box.removePlacement(placement);
+        assertEquals("A cell should not change with the box", CellState.OCCUPIED, cell.getState());
+        assertEquals("Removed cell has the wrong state", CellState.FREE, box.getState(0, 1));
+    }
+
+    /**
+     * Tests if a failing placement leaves the box unchanged
+     */
+    public void testAddPlacementUnchangedOnFailure() {
+        ArrayList<Position> blockedPositions = new ArrayList<Position>();
+        blockedPositions.add(new Position(1, 0));
+        Box box = new Box(3, 3, blockedPositions);
+        try {
+            box.addPlacement(new Placement(new Position(0, 0), Fixture.o1, Fixture.p));
+            fail("IllegalArgumentException should have been thrown");
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals("No cell should be occupied", CellState.FREE, box.getState(0, 0));
+        assertEquals("No cell should be occupied", 8, box.getFreeCellCount());
+        assertTrue("No placement should be in the box", box.getPlacements().isEmpty());
+    }
+
+    /**
+     * Tests if a large box with many blocked cells is constructed and filled quickly
+     */
+    public void testLargeBox() {
+        ArrayList<Position> blockedPositions = new ArrayList<Position>();
+        for (int i = 0; i < 500; ++i)
+            for (int j = 0; j < 500; j += 2)
+                blockedPositions.add(new Position(i, j));
+        Box box = new Box(500, 500, blockedPositions);
+        assertEquals("Half of the cells should be free", 125000, box.getFreeCellCount());
+
+        for (int i = 0; i < 500; i += 2)
+            for (int j = 1; j < 500; j += 2)
+                box.addPlacement(new Placement(new Position(i, j), Fixture.o1, Fixture.p));
+        assertEquals("Every free cell should be occupied", 0, box.getFreeCellCount());
+        assertEquals("Wrong number of placements", 62500, box.getPlacements().size());
+        assertEquals("Cell has the wrong placement", new Placement(new Position(498, 499), Fixture.o1, Fixture.p), box.get(499, 499).getPlacement());
+    }
+
     /**
      * Tests if removePlacement throws an exception on negative input
      */
@@ -301,4 +396,4 @@ public class BoxTest extends TestCase {
         assertFalse("Unequal objects must return unequal hashcodes test fails", xHashcode == yHashcode);
     }
 
-}
+}
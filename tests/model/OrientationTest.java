@@ -201,4 +201,64 @@ public class OrientationTest extends TestCase {
                           '}';
         assertEquals(expected, o.toString());
     }
+
+    /**
+     * Tests if the offsets are sorted row by row, whatever the order of adding
+     */
+    public void testOffsets() {
+        Orientation orientation = new Orientation();
+        orientation.addPosition(2, 0);
+        orientation.addPosition(0, 1);
+        orientation.addPosition(1, 1);
+        orientation.addPosition(1, 0);
+        orientation.addPosition(0, 1);
+
+        assertTrue("Rows are wrong", java.util.Arrays.equals(new int[]{0, 1, 1, 2}, orientation.getRowOffsets()));
+        assertTrue("Columns are wrong", java.util.Arrays.equals(new int[]{1, 0, 1, 0}, orientation.getColumnOffsets()));
+    }
+
+    /**
+     * Tests if canonical moves a shape to the top left, and rotated and flipped give canonical images
+     */
+    public void testTransforms() {
+        Orientation shape = new Orientation();
+        shape.addPosition(1, 2);
+        shape.addPosition(2, 2);
+        shape.addPosition(2, 3);
+        Orientation canonical = new Orientation();
+        canonical.addPosition(0, 0);
+        canonical.addPosition(1, 0);
+        canonical.addPosition(1, 1);
+        Orientation rotated = new Orientation();
+        rotated.addPosition(0, 0);
+        rotated.addPosition(0, 1);
+        rotated.addPosition(1, 0);
+        Orientation flipped = new Orientation();
+        flipped.addPosition(0, 1);
+        flipped.addPosition(1, 0);
+        flipped.addPosition(1, 1);
+
+        assertEquals("Canonical form is wrong", canonical, shape.canonical());
+        assertEquals("Rotation is wrong", rotated, shape.rotated());
+        assertEquals("Flip is wrong", flipped, shape.flipped());
+        assertEquals("Four rotations should give the shape back", canonical, shape.rotated().rotated().rotated().rotated());
+    }
+
+    /**
+     * Tests if the row masks hold the occupied columns, also past 64 columns
+     */
+    public void testRowMasks() {
+        Orientation orientation = new Orientation();
+        orientation.addPosition(0, 0);
+        orientation.addPosition(0, 2);
+        orientation.addPosition(1, 70);
+
+        assertEquals("Mask of row 0 is wrong", 5L, orientation.getRowMask(0, 0));
+        assertEquals("Mask of row 0 is wrong", 0L, orientation.getRowMask(0, 1));
+        assertEquals("Mask of row 1 is wrong", 1L << 6, orientation.getRowMask(1, 1));
+        assertEquals("Rows outside the bounding box are empty", 0L, orientation.getRowMask(2, 0));
+        assertTrue("(1, 70) is added", orientation.isPositionOccupied(1, 70));
+        assertFalse("(1, 6) is never added", orientation.isPositionOccupied(1, 6));
+        assertFalse("(0, 64) is never added", orientation.isPositionOccupied(0, 64));
+    }
 }
@@ -47,6 +47,30 @@ public class PieceTest extends TestCase {
         }
     }
 
+    /**
+     * Tests if the images of a base shape are added once, and the others counted as duplicates
+     */
+    public void testAddOrientations() {
+        Orientation i = new Orientation();
+        for (int column = 1; column < 5; ++column)
+            i.addPosition(2, column);
+        Piece p = new Piece("I", Color.WHITE, 1);
+        assertEquals("A line has two orientations", 2, p.addOrientations(i, PieceSymmetry.ROTATIONS_AND_FLIPS));
+        assertEquals("Two orientations should be added", 2, p.getOrientationCount());
+        assertEquals("The line is given as the base and three more times", 3, p.getDuplicateCount(i.canonical()));
+        assertEquals("Added again, every image is a duplicate", 0, p.addOrientations(i, PieceSymmetry.ROTATIONS));
+        assertEquals("Duplicates should be counted again", 5, p.getDuplicateCount(i.canonical()));
+
+        Orientation l = new Orientation();
+        l.addPosition(0, 0);
+        l.addPosition(1, 0);
+        l.addPosition(1, 1);
+        l.addPosition(1, 2);
+        assertEquals("Only the shape itself is added", 1, new Piece("L", Color.BLUE, 1).addOrientations(l, PieceSymmetry.AS_GIVEN));
+        assertEquals("An L has four rotations", 4, new Piece("L", Color.BLUE, 1).addOrientations(l, PieceSymmetry.ROTATIONS));
+        assertEquals("An L has eight orientations", 8, new Piece("L", Color.BLUE, 1).addOrientations(l, PieceSymmetry.ROTATIONS_AND_FLIPS));
+    }
+
     /**
      * Tests if setMultiplicity throws an exception when {@code multiplicity <= 0} and the normal working.
      */
@@ -202,4 +202,32 @@ public class PuzzleTest extends TestCase {
         Fixture.x.removePlacement(placement);
         assertEquals("Test remaining placements fails", 1, Fixture.x.getRemainingPlacementsOfPiece(Fixture.piece1));
     }
+
+    /**
+     * Tests if placements in a solver session only reach the box when they are applied, and are never journaled.
+     */
+    public void testSolverSession() {
+        String empty = Fixture.x.boxToString();
+        Placement placement = new Placement(new Position(0, 0), Fixture.piece1.orientationIterator().next(), Fixture.piece1);
+        Fixture.x.beginSolverSession();
+        Fixture.x.addSolverPlacement(placement);
+        assertEquals("Session placements should not reach the box", empty, Fixture.x.boxToString());
+        assertEquals("Session placements should be counted", 0, Fixture.x.getRemainingPlacementsOfPiece(Fixture.piece1));
+        try {
+            Fixture.x.addSolverPlacement(placement);
+            fail("A MaximumPlacementsReached exception should have been thrown.");
+        } catch (MaximumPlacementsReached e) {
+            assertTrue(true);
+        }
+
+        Fixture.x.applySolverPlacements();
+        assertEquals("Applied placements should be in the box", Fixture.piece1, Fixture.x.getBox().get(0, 0).getPlacement().getPiece());
+        Fixture.x.revertSolverPlacements();
+        assertEquals("Reverted placements should leave the box", empty, Fixture.x.boxToString());
+        Fixture.x.removeSolverPlacement();
+        Fixture.x.endSolverSession();
+
+        assertFalse("Session placements should not be journaled", Fixture.x.undoPossible());
+        assertEquals("Test remaining placements fails", 1, Fixture.x.getRemainingPlacementsOfPiece(Fixture.piece1));
+    }
 }
@@ -0,0 +1,167 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.*;
+import textio.PuzzleReader;
+
+import java.awt.*;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the implementation of ArrayDLX, by comparing it with DLX
+ *
+ * @author Robert Leenders
+ */
+public class ArrayDLXTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertSameSolutions("tests/files/SimplePuzzle.txt");
+    }
+
+    public void testPentomino3x20() {
+        assertSameSolutions("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+    }
+
+    /**
+     * A 2x4 box with four identical dominoes has 5 tilings; DLX finds each of them once for every order of the copies.
+     */
+    public void testMultiplicity() {
+        DLX dlx = new DLX(dominoPuzzle(2, 4));
+        ArrayDLX arrayDLX = new ArrayDLX(dominoPuzzle(2, 4));
+        dlx.findAll();
+        arrayDLX.findAll();
+
+        assertEquals("DLX should find every order of the copies", 5 * 4 * 3 * 2, dlx.getNSolutionsFound());
+        assertEquals("ArrayDLX should find every tiling once", 5, arrayDLX.getNSolutionsFound());
+    }
+
+    public void testPruneDeadRegions() {
+        ArrayDLX arrayDLX = new ArrayDLX(read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        ArrayDLX pruned = new ArrayDLX(read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        pruned.setPruneDeadRegions(true);
+        List<String> expected = collectSolutions(arrayDLX);
+        List<String> result = collectSolutions(pruned);
+
+        assertEquals("Solutions differ (or are in a different order)", expected, result);
+        assertTrue("Some branches should be pruned", pruned.getNNodesPruned() > 0);
+        assertTrue("Pruning should cut the search", pruned.getNNodesVisited() < arrayDLX.getNNodesVisited());
+        assertEquals("Nothing should be pruned when pruning is off", 0, arrayDLX.getNNodesPruned());
+    }
+
+    public void testCountAll() {
+        ArrayDLX arrayDLX = new ArrayDLX(read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        ArrayDLX counter = new ArrayDLX(read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        counter.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                fail("Counting should not report solutions");
+            }
+        });
+        int freeCells = counter.getPuzzle().getBox().getFreeCellCount();
+        arrayDLX.findAll();
+
+        assertEquals("Number of solutions differs", arrayDLX.getNSolutionsFound(), counter.countAll());
+        assertEquals("Number of visited nodes differs", arrayDLX.getNNodesVisited(), counter.getNNodesVisited());
+        assertEquals("Counting should leave the box alone", freeCells, counter.getPuzzle().getBox().getFreeCellCount());
+        assertEquals("Every domino tiling of a 4x4 box should be counted once", 36, new ArrayDLX(dominoPuzzle(4, 4)).countAll());
+    }
+
+    /**
+     * Pieces generated from base shapes give the same matrix as pieces with every orientation listed; the matrix
+     * would have had a row more for every duplicate orientation.
+     */
+    public void testBaseShapes() {
+        Puzzle listed = read("tests/files/PentominoPuzzle_6x10_V-restricted.txt");
+        Puzzle generated = read("tests/files/PentominoPuzzle_6x10_V-restricted-base.txt");
+        ArrayDLX expected = new ArrayDLX(listed);
+        ArrayDLX result = new ArrayDLX(generated);
+
+        assertEquals("Number of rows differs", expected.getRowCount(), result.getRowCount());
+        assertEquals("Listed orientations have no duplicates", 0, expected.getDuplicateRowCount());
+        // X has 32 placements, dropped 7 times; I has 36 + 20, dropped 3 times each; T, W and Z have 4 * 32 and U has
+        // 2 * 40 + 2 * 36, all dropped once
+        assertEquals("Rows of duplicate orientations are counted wrong", 7 * 32 + 3 * 56 + 3 * 128 + 152, result.getDuplicateRowCount());
+    }
+
+    /**
+     * A puzzle with pieces in the box is completed: the solvers only search the free cells with the pieces left.
+     */
+    public void testCompletePlacements() {
+        Puzzle solved = read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        final ArrayDLX first = new ArrayDLX(solved);
+        first.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                first.stop();
+            }
+        });
+        first.findAll();
+        List<Placement> placements = solved.getBox().getPlacements();
+        assertEquals("Solution should have every piece", 12, placements.size());
+
+        Puzzle partial = new Puzzle(solved.getName(), new Box(3, 20), solved.getBagOfPieces());
+        for (Placement placement : placements.subList(0, 9))
+            partial.addPlacement(placement);
+        ArrayDLX arrayDLX = new ArrayDLX(partial);
+        List<String> solutions = collectSolutions(arrayDLX);
+
+        assertEquals("Only the solution should complete the placements", 1, solutions.size());
+        assertEquals("Completion differs", solved.boxToString(), solutions.get(0));
+        assertTrue("Completing should hardly search", arrayDLX.getNNodesVisited() < 10);
+        assertEquals("Placements should stay in the box", 9, partial.getBox().getPlacements().size());
+
+        DLX dlx = new DLX(partial);
+        dlx.findAll();
+        assertEquals("DLX should complete the placements", 1, dlx.getNSolutionsFound());
+
+        for (Placement placement : placements.subList(9, 12))
+            partial.addPlacement(placement);
+        assertEquals("A full box has only itself as solution", 1, new ArrayDLX(partial).countAll());
+    }
+
+    static Puzzle dominoPuzzle(int rowCount, int columnCount) {
+        BagOfPieces bagOfPieces = new BagOfPieces();
+        Piece domino = new Piece("D", Color.RED, rowCount * columnCount / 2);
+        Orientation o = new Orientation();
+        o.addPosition(0, 0);
+        o.addPosition(0, 1);
+        domino.addOrientation(o);
+        o = new Orientation();
+        o.addPosition(0, 0);
+        o.addPosition(1, 0);
+        domino.addOrientation(o);
+        bagOfPieces.add(domino);
+        return new Puzzle("Dominoes", new Box(rowCount, columnCount), bagOfPieces);
+    }
+
+    private void assertSameSolutions(String path) {
+        DLX dlx = new DLX(read(path));
+        ArrayDLX arrayDLX = new ArrayDLX(read(path));
+        List<String> expected = collectSolutions(dlx);
+        List<String> result = collectSolutions(arrayDLX);
+
+        assertEquals("Solutions differ (or are in a different order)", expected, result);
+        assertEquals("Number of visited nodes differs", dlx.getNNodesVisited(), arrayDLX.getNNodesVisited());
+    }
+
+    static List<String> collectSolutions(Solver solver) {
+        final List<String> solutions = new ArrayList<String>();
+        solver.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                solutions.add(puzzle.boxToString());
+            }
+        });
+        solver.findAll();
+        return solutions;
+    }
+
+    static Puzzle read(String path) {
+        Puzzle result = null;
+        try {
+            result = PuzzleReader.read(path);
+        } catch (FileNotFoundException e) {
+            fail("File not found, path: " + e.getMessage());
+        }
+        return result;
+    }
+}
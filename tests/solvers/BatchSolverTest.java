@@ -0,0 +1,150 @@
+package solvers;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Tests the headless BatchSolver.
+ *
+ * @author Robert Leenders
+ */
+public class BatchSolverTest extends TestCase {
+
+    public void testPuzzleFiles() {
+        List<File> files = BatchSolver.puzzleFiles(Collections.singletonList("tests/files"));
+
+        assertEquals("Only the puzzle files should be found", 6, files.size());
+        assertEquals("Files should be sorted", "SimplePuzzle.txt", files.get(5).getName());
+    }
+
+    public void testCount() throws InterruptedException {
+        List<String> lines = solve(BatchSolver.Mode.COUNT, BatchSolver.Format.JSON, "tests/files/SimplePuzzle.txt", "tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        Collections.sort(lines);
+
+        assertEquals("Every puzzle should have a line", 2, lines.size());
+        assertTrue("Wrong result: " + lines.get(0), lines.get(0).contains("\"status\":\"done\",\"solutions\":2,"));
+        assertTrue("Wrong result: " + lines.get(1), lines.get(1).contains("\"status\":\"done\",\"solutions\":12,"));
+    }
+
+    public void testFirst() throws InterruptedException {
+        List<String> lines = solve(BatchSolver.Mode.FIRST, BatchSolver.Format.CSV, "tests/files/SimplePuzzle.txt");
+
+        assertEquals("Header and a line expected", 2, lines.size());
+        assertTrue("Wrong header: " + lines.get(0), lines.get(0).startsWith("file,name,mode,status,solutions"));
+        assertTrue("Wrong result: " + lines.get(1), lines.get(1).contains("\"first\",\"done\",1,"));
+        assertTrue("Solution expected: " + lines.get(1), lines.get(1).contains("\"BAC/BCC\""));
+    }
+
+    public void testAll() throws InterruptedException {
+        List<String> lines = solve(BatchSolver.Mode.ALL, BatchSolver.Format.JSON, "tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+
+        assertEquals("Every solution and the puzzle should have a line", 3, lines.size());
+        for (int i = 0; i < 2; ++i)
+            assertTrue("Wrong solution: " + lines.get(i), lines.get(i).contains("\"status\":\"solution\",\"number\":" + (i + 1) + ",\"solution\":\""));
+        assertTrue("Wrong result: " + lines.get(2), lines.get(2).contains("\"status\":\"done\",\"solutions\":2,"));
+    }
+
+    public void testAllToSolutionsFile() throws InterruptedException, IOException {
+        File directory = File.createTempFile("solutions", "");
+        assertTrue("Temporary directory expected", directory.delete() && directory.mkdir());
+        File file = new File(directory, "PentominoPuzzle_3x20_V-restricted.bin");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BatchSolver batchSolver = new BatchSolver(new PrintStream(bytes, true));
+            batchSolver.setMode(BatchSolver.Mode.ALL);
+            batchSolver.setSolutionsDirectory(directory);
+            batchSolver.solveAll(Collections.singletonList(new File("tests/files/PentominoPuzzle_3x20_V-restricted.txt")));
+
+            String line = bytes.toString().trim();
+            assertFalse("Only the result of the puzzle expected: " + line, line.contains("\n"));
+            assertTrue("Wrong result: " + line, line.contains("\"solutions\":2,"));
+            assertTrue("Solutions file expected: " + line, line.contains("\"solutionsFile\":"));
+            SolutionReader reader = new SolutionReader(file);
+            try {
+                assertEquals("Every solution should be written", 2, reader.size());
+            } finally {
+                reader.close();
+            }
+        } finally {
+            file.delete();
+            directory.delete();
+        }
+    }
+
+    public void testError() throws InterruptedException {
+        List<String> lines = solve(BatchSolver.Mode.COUNT, BatchSolver.Format.JSON, "tests/files/NoSuchPuzzle.txt");
+
+        assertEquals("Every puzzle should have a line", 1, lines.size());
+        assertTrue("Error expected: " + lines.get(0), lines.get(0).contains("\"status\":\"error\""));
+    }
+
+    public void testTimeout() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BatchSolver batchSolver = new BatchSolver(new PrintStream(bytes, true));
+        batchSolver.setTimeout(50);
+        batchSolver.solveAll(Collections.singletonList(new File("tests/files/PentominoPuzzle_6x10_V-restricted.txt")));
+
+        assertTrue("Timeout expected: " + bytes, bytes.toString().contains("\"status\":\"timeout\""));
+    }
+
+    public void testEstimateBeforeSearch() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BatchSolver batchSolver = new BatchSolver(new PrintStream(bytes, true));
+        batchSolver.setEstimateProbes(100);
+        batchSolver.solveAll(Collections.singletonList(new File("tests/files/PentominoPuzzle_3x20_V-restricted.txt")));
+        String[] lines = bytes.toString().trim().split("\r?\n");
+
+        assertEquals("An estimate and a result expected", 2, lines.length);
+        assertTrue("Wrong estimate: " + lines[0], lines[0].contains("\"status\":\"estimate\",\"estimatedNodes\":"));
+        assertTrue("Confidence interval expected: " + lines[0], lines[0].contains("\"estimatedNodesLow\":"));
+        assertTrue("Wrong result: " + lines[1], lines[1].contains("\"status\":\"done\",\"solutions\":2,"));
+    }
+
+    public void testTimeoutDuringEstimate() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BatchSolver batchSolver = new BatchSolver(new PrintStream(bytes, true));
+        batchSolver.setTimeout(50);
+        batchSolver.setEstimateProbes(Integer.MAX_VALUE);
+        long start = System.nanoTime();
+        batchSolver.solveAll(Collections.singletonList(new File("tests/files/PentominoPuzzle_6x10_V-restricted.txt")));
+
+        assertTrue("Timeout expected: " + bytes, bytes.toString().contains("\"status\":\"timeout\""));
+        assertTrue("The estimate should be stopped", System.nanoTime() - start < 10000000000L);
+    }
+
+    public void testJson() {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("name", "a\"b\\c\nd");
+        result.put("solutions", 3L);
+
+        assertEquals("Wrong JSON", "{\"name\":\"a\\\"b\\\\c\\nd\",\"solutions\":3}", BatchSolver.json(result));
+    }
+
+    public void testIllegalThreads() {
+        try {
+            new BatchSolver(System.out).setThreads(0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static List<String> solve(BatchSolver.Mode mode, BatchSolver.Format format, String... paths) throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BatchSolver batchSolver = new BatchSolver(new PrintStream(bytes, true));
+        batchSolver.setMode(mode);
+        batchSolver.setFormat(format);
+        batchSolver.setThreads(2);
+        batchSolver.solveAll(BatchSolver.puzzleFiles(Arrays.asList(paths)));
+        List<String> result = new ArrayList<String>();
+        for (String line : bytes.toString().split("\r?\n"))
+            if (!line.isEmpty())
+                result.add(line);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Box;
+import model.Piece;
+import model.Position;
+import model.Puzzle;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the implementation of BitboardSolver, by comparing it with ArrayDLX. The order of the solutions may differ.
+ *
+ * @author Robert Leenders
+ */
+public class BitboardSolverTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertSameSolutions(ArrayDLXTest.read("tests/files/SimplePuzzle.txt"), ArrayDLXTest.read("tests/files/SimplePuzzle.txt"));
+    }
+
+    public void testPentomino3x20() {
+        assertSameSolutions(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"),
+                ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+    }
+
+    public void testMultiplicity() {
+        BitboardSolver solver = new BitboardSolver(ArrayDLXTest.dominoPuzzle(4, 4));
+        solver.findAll();
+
+        assertEquals("Every domino tiling of a 4x4 box should be found once", 36, solver.getNSolutionsFound());
+    }
+
+    /**
+     * A piece without orientations has no placements; the box is tiled by the other pieces.
+     */
+    public void testPieceWithoutOrientations() {
+        BitboardSolver solver = new BitboardSolver(dominoPuzzleWithEmptyPiece());
+        solver.findAll();
+
+        assertEquals("Every domino tiling of a 2x4 box should be found once", 5, solver.getNSolutionsFound());
+    }
+
+    private static Puzzle dominoPuzzleWithEmptyPiece() {
+        Puzzle puzzle = ArrayDLXTest.dominoPuzzle(2, 4);
+        puzzle.getBagOfPieces().add(new Piece("E", Color.BLUE, 1));
+        return new Puzzle(puzzle.getName(), puzzle.getBox(), puzzle.getBagOfPieces());
+    }
+
+    public void testPruneDeadRegions() {
+        BitboardSolver solver = new BitboardSolver(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        solver.setPruneDeadRegions(true);
+        assertSameSolutions(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"), solver);
+        assertTrue("Some placements should be pruned", solver.getNNodesPruned() > 0);
+    }
+
+    public void testPruneDeadRegionsMultipleWords() {
+        BitboardSolver solver = new BitboardSolver(blockedPuzzle());
+        solver.setPruneDeadRegions(true);
+        assertSameSolutions(blockedPuzzle(), solver);
+        assertTrue("Some placements should be pruned", solver.getNNodesPruned() > 0);
+    }
+
+    /**
+     * A 3x22 box does not fit in a single {@code long}; with its last two columns blocked it is the 3x20 pentomino box.
+     */
+    public void testMultipleWords() {
+        assertSameSolutions(blockedPuzzle(), blockedPuzzle());
+    }
+
+    private Puzzle blockedPuzzle() {
+        Puzzle puzzle = ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        ArrayList<Position> blockedPositions = new ArrayList<Position>();
+        for (int i = 0; i < 3; ++i) {
+            blockedPositions.add(new Position(i, 20));
+            blockedPositions.add(new Position(i, 21));
+        }
+        Box box = new Box(3, 22, blockedPositions);
+        return new Puzzle(puzzle.getName(), box, puzzle.getBagOfPieces());
+    }
+
+    private void assertSameSolutions(Puzzle expectedPuzzle, Puzzle puzzle) {
+        assertSameSolutions(expectedPuzzle, new BitboardSolver(puzzle));
+    }
+
+    private void assertSameSolutions(Puzzle expectedPuzzle, BitboardSolver solver) {
+        ArrayDLX arrayDLX = new ArrayDLX(expectedPuzzle);
+        List<String> expected = ArrayDLXTest.collectSolutions(arrayDLX);
+        List<String> result = ArrayDLXTest.collectSolutions(solver);
+        Collections.sort(expected);
+        Collections.sort(result);
+
+        assertEquals("Solutions differ", expected, result);
+        assertEquals("Number of solutions differs", arrayDLX.getNSolutionsFound(), solver.getNSolutionsFound());
+    }
+}
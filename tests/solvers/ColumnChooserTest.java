@@ -0,0 +1,76 @@
+package solvers;
+
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the column choosers of DLX, by comparing the solutions with those of the default chooser. The order of the
+ * solutions may differ.
+ *
+ * @author Robert Leenders
+ */
+public class ColumnChooserTest extends TestCase {
+
+    public void testCellFirst() {
+        assertSameSolutions(new CellFirstColumnChooser());
+    }
+
+    public void testRandom() {
+        assertSameSolutions(new RandomColumnChooser(42));
+    }
+
+    public void testBucket() {
+        assertSameSolutions(new BucketColumnChooser());
+    }
+
+    /**
+     * A chooser only needs the public view of the columns, so it can be written outside the package.
+     */
+    public void testCustom() {
+        assertSameSolutions(new AbstractColumnChooser() {
+            public DLX.Column choose(DLX.Column root) {
+                DLX.Column best = null;
+                for (DLX.Column i = root.getRight(); i != root; i = i.getRight())
+                    if (best == null || i.getSize() <= best.getSize())
+                        best = i; // the last column with the fewest rows
+                return best;
+            }
+        });
+    }
+
+    public void testRandomSeed() {
+        DLX first = new DLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        first.setColumnChooser(new RandomColumnChooser(7));
+        DLX second = new DLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        second.setColumnChooser(new RandomColumnChooser(7));
+
+        assertEquals("The same seed should give the same search", ArrayDLXTest.collectSolutions(first), ArrayDLXTest.collectSolutions(second));
+        assertEquals("The same seed should give the same search", first.getNNodesVisited(), second.getNNodesVisited());
+    }
+
+    public void testNull() {
+        DLX dlx = new DLX(ArrayDLXTest.read("tests/files/SimplePuzzle.txt"));
+        try {
+            dlx.setColumnChooser(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void assertSameSolutions(ColumnChooser columnChooser) {
+        for (String path : new String[]{"tests/files/SimplePuzzle.txt", "tests/files/PentominoPuzzle_3x20_V-restricted.txt"}) {
+            DLX expectedDLX = new DLX(ArrayDLXTest.read(path));
+            DLX dlx = new DLX(ArrayDLXTest.read(path));
+            dlx.setColumnChooser(columnChooser);
+            List<String> expected = ArrayDLXTest.collectSolutions(expectedDLX);
+            List<String> result = ArrayDLXTest.collectSolutions(dlx);
+            Collections.sort(expected);
+            Collections.sort(result);
+
+            assertEquals("Solutions differ for " + path, expected, result);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Orientation;
+import model.Piece;
+import model.Puzzle;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the implementation of DancingCells, by comparing it with DLX. The order of the solutions may differ.
+ *
+ * @author Robert Leenders
+ */
+public class DancingCellsTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertSameSolutions("tests/files/SimplePuzzle.txt");
+    }
+
+    public void testPentomino3x20() {
+        assertSameSolutions("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+    }
+
+    public void testMultiplicity() {
+        DancingCells dancingCells = new DancingCells(ArrayDLXTest.dominoPuzzle(4, 4));
+        dancingCells.findAll();
+
+        assertEquals("Every domino tiling of a 4x4 box should be found once", 36, dancingCells.getNSolutionsFound());
+        assertEquals("There is no domino tiling of a 3x3 box", 0, solve(ArrayDLXTest.dominoPuzzle(3, 3)));
+    }
+
+    public void testStop() {
+        final DancingCells dancingCells = new DancingCells(ArrayDLXTest.dominoPuzzle(4, 4));
+        dancingCells.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                dancingCells.stop();
+            }
+        });
+        dancingCells.findAll();
+
+        assertEquals("Solver should stop at the first solution", 1, dancingCells.getNSolutionsFound());
+    }
+
+    /**
+     * With copies to spare a solution may leave copies unused, as in BitboardSolver. ArrayDLX may branch on the column
+     * of the spare monominoes, which asks for both of them, and so misses the tilings with fewer monominoes.
+     */
+    public void testSurplusCopies() {
+        BitboardSolver bitboardSolver = new BitboardSolver(surplusPuzzle());
+        ArrayDLX arrayDLX = new ArrayDLX(surplusPuzzle());
+        bitboardSolver.findAll();
+        arrayDLX.findAll();
+
+        assertEquals("Every tiling with at most the given copies should be found once",
+                bitboardSolver.getNSolutionsFound(), solve(surplusPuzzle()));
+        assertTrue("ArrayDLX should find fewer tilings", arrayDLX.getNSolutionsFound() < solve(surplusPuzzle()));
+    }
+
+    /**
+     * Four dominoes and two monominoes for the eight cells of a 2x4 box.
+     */
+    private static Puzzle surplusPuzzle() {
+        Puzzle puzzle = ArrayDLXTest.dominoPuzzle(2, 4);
+        Piece monomino = new Piece("M", Color.BLUE, 2);
+        Orientation o = new Orientation();
+        o.addPosition(0, 0);
+        monomino.addOrientation(o);
+        puzzle.getBagOfPieces().add(monomino);
+        return new Puzzle(puzzle.getName(), puzzle.getBox(), puzzle.getBagOfPieces());
+    }
+
+    private static int solve(Puzzle puzzle) {
+        DancingCells dancingCells = new DancingCells(puzzle);
+        dancingCells.findAll();
+        return dancingCells.getNSolutionsFound();
+    }
+
+    private void assertSameSolutions(String path) {
+        List<String> expected = ArrayDLXTest.collectSolutions(new DLX(ArrayDLXTest.read(path)));
+        List<String> result = ArrayDLXTest.collectSolutions(new DancingCells(ArrayDLXTest.read(path)));
+        Collections.sort(expected);
+        Collections.sort(result);
+
+        assertEquals("Solutions differ", expected, result);
+    }
+}
@@ -0,0 +1,191 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Piece;
+import model.Puzzle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the implementation of IterativeDLX, by comparing it with ArrayDLX
+ *
+ * @author Robert Leenders
+ */
+public class IterativeDLXTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertSameSolutions("tests/files/SimplePuzzle.txt");
+    }
+
+    public void testPentomino3x20() {
+        assertSameSolutions("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+    }
+
+    public void testMultiplicity() {
+        IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.dominoPuzzle(4, 4));
+        iterativeDLX.findAll();
+
+        assertEquals("Every domino tiling of a 4x4 box should be found once", 36, iterativeDLX.getNSolutionsFound());
+        assertTrue("The search should be finished", iterativeDLX.isFinished());
+    }
+
+    /**
+     * Every step makes one placement, so stepping through the search takes as many steps as there are visited nodes.
+     */
+    public void testStep() {
+        IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.read("tests/files/SimplePuzzle.txt"));
+        iterativeDLX.setTracePlacements(true);
+        Puzzle puzzle = iterativeDLX.getPuzzle();
+        int steps = 0;
+        while (iterativeDLX.step()) {
+            ++steps;
+            assertEquals("The box should show the placements of the search", iterativeDLX.getDepth(), placementCount(puzzle));
+        }
+
+        assertEquals("Number of steps differs", iterativeDLX.getNNodesVisited(), steps);
+        assertFalse("A finished search makes no more steps", iterativeDLX.step());
+    }
+
+    public void testPauseAndResume() throws InterruptedException {
+        final IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        iterativeDLX.pause();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                iterativeDLX.findAll();
+            }
+        });
+        thread.start();
+
+        thread.join(100);
+        assertTrue("A paused search should wait", thread.isAlive());
+        assertEquals("A paused search should make no steps", 0, iterativeDLX.getNNodesVisited());
+
+        iterativeDLX.singleStep();
+        iterativeDLX.singleStep();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (iterativeDLX.getNNodesVisited() < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        thread.join(100);
+        assertEquals("Two single steps should make two placements", 2, iterativeDLX.getNNodesVisited());
+
+        iterativeDLX.resume();
+        thread.join(10000);
+        assertFalse("A resumed search should finish", thread.isAlive());
+        assertEquals("Number of solutions is wrong", 2, iterativeDLX.getNSolutionsFound());
+    }
+
+    public void testStopWhilePaused() throws InterruptedException {
+        final IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        iterativeDLX.pause();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                iterativeDLX.findAll();
+            }
+        });
+        thread.start();
+        iterativeDLX.stop();
+        thread.join(10000);
+
+        assertFalse("A stopped search should return", thread.isAlive());
+        assertTrue("A stopped search should be finished", iterativeDLX.isFinished());
+        assertFalse("The solver session should be ended", iterativeDLX.getPuzzle().isInSolverSession());
+    }
+
+    /**
+     * A search which is interrupted after any number of steps and resumed from its checkpoint finds every solution
+     * once.
+     */
+    public void testCheckpoint() throws IOException {
+        assertResumable(false);
+    }
+
+    /**
+     * Resuming in a column with a multiplicity has to skip the rows which were tried before.
+     */
+    public void testCheckpointMultiplicity() throws IOException {
+        assertResumable(true);
+    }
+
+    private void assertResumable(boolean dominoes) throws IOException {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        IterativeDLX full = new IterativeDLX(checkpointPuzzle(dominoes));
+        List<String> expected = ArrayDLXTest.collectSolutions(full);
+
+        for (int steps = 0; steps <= full.getNNodesVisited(); ++steps) {
+            List<String> result = new ArrayList<String>();
+            IterativeDLX first = new IterativeDLX(checkpointPuzzle(dominoes));
+            collectSolutions(first, result);
+            for (int i = 0; i < steps; ++i)
+                first.step();
+            first.writeCheckpoint(file);
+            first.stop();
+            first.step();
+
+            IterativeDLX second = new IterativeDLX(checkpointPuzzle(dominoes));
+            collectSolutions(second, result);
+            second.resumeFrom(file);
+
+            assertEquals("Solutions differ after " + steps + " steps", expected, result);
+            assertEquals("Number of solutions differs after " + steps + " steps", full.getNSolutionsFound(), second.getNSolutionsFound());
+            assertEquals("Number of visited nodes differs after " + steps + " steps", full.getNNodesVisited(), second.getNNodesVisited());
+        }
+    }
+
+    private static Puzzle checkpointPuzzle(boolean dominoes) {
+        return dominoes ? ArrayDLXTest.dominoPuzzle(3, 4) : ArrayDLXTest.read("tests/files/SimplePuzzle.txt");
+    }
+
+    public void testPeriodicCheckpoint() throws IOException {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        iterativeDLX.setCheckpointFile(file, 0);
+        iterativeDLX.findAll();
+
+        IterativeDLX resumed = new IterativeDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        resumed.resumeFrom(file);
+        assertTrue("A finished search should resume as finished", resumed.isFinished());
+        assertEquals("Number of solutions is wrong", 2, resumed.getNSolutionsFound());
+    }
+
+    public void testCheckpointOfOtherPuzzle() throws IOException {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        new IterativeDLX(ArrayDLXTest.dominoPuzzle(3, 4)).writeCheckpoint(file);
+        try {
+            new IterativeDLX(ArrayDLXTest.dominoPuzzle(2, 4)).resumeFrom(file);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void collectSolutions(Solver solver, final List<String> solutions) {
+        solver.addListener(new SolverListener() {
+            public void solutionFound(int solutionNumber, Puzzle puzzle) {
+                solutions.add(puzzle.boxToString());
+            }
+        });
+    }
+
+    private static int placementCount(Puzzle puzzle) {
+        int result = 0;
+        for (Piece piece : puzzle.getBagOfPieces())
+            result += piece.getMultiplicity() - puzzle.getRemainingPlacementsOfPiece(piece);
+        return result;
+    }
+
+    private void assertSameSolutions(String path) {
+        ArrayDLX arrayDLX = new ArrayDLX(ArrayDLXTest.read(path));
+        IterativeDLX iterativeDLX = new IterativeDLX(ArrayDLXTest.read(path));
+        List<String> expected = ArrayDLXTest.collectSolutions(arrayDLX);
+        List<String> result = ArrayDLXTest.collectSolutions(iterativeDLX);
+
+        assertEquals("Solutions differ (or are in a different order)", expected, result);
+        assertEquals("Number of visited nodes differs", arrayDLX.getNNodesVisited(), iterativeDLX.getNNodesVisited());
+    }
+}
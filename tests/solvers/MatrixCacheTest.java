@@ -0,0 +1,149 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Puzzle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Tests that MatrixCache gives the same matrices as building them.
+ *
+ * @author Robert Leenders
+ */
+public class MatrixCacheTest extends TestCase {
+    private File directory;
+
+    public void setUp() throws IOException {
+        directory = File.createTempFile("matrices", "");
+        directory.delete();
+    }
+
+    public void tearDown() {
+        new MatrixCache(directory).clear();
+        directory.delete();
+    }
+
+    public void testHit() {
+        MatrixCache cache = new MatrixCache(directory);
+        Puzzle puzzle = ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        Matrix expected = Matrix.build(puzzle);
+        Matrix built = cache.build(puzzle);
+        Matrix read = cache.build(puzzle);
+
+        assertEquals("The first build should miss", 1, cache.getMisses());
+        assertEquals("The second build should hit", 1, cache.getHits());
+        assertEquals("Nothing should go wrong", 0, cache.getErrors());
+        assertSameMatrix(expected, built);
+        assertSameMatrix(expected, read);
+    }
+
+    /**
+     * A puzzle with a placement in the box has another matrix, so it has another key.
+     */
+    public void testPartialState() {
+        MatrixCache cache = new MatrixCache(directory);
+        Puzzle puzzle = ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        Matrix full = cache.build(puzzle);
+        puzzle.addPlacement(full.placementOfRow.get(0));
+        Matrix partial = cache.build(puzzle);
+
+        assertEquals("Both builds should miss", 2, cache.getMisses());
+        assertSameMatrix(Matrix.build(puzzle), partial);
+        assertSameMatrix(Matrix.build(puzzle), cache.build(puzzle));
+    }
+
+    /**
+     * A damaged file is built again and replaced.
+     */
+    public void testDamagedFile() throws IOException {
+        MatrixCache cache = new MatrixCache(directory);
+        Puzzle puzzle = ArrayDLXTest.dominoPuzzle(4, 4);
+        cache.build(puzzle);
+        File[] files = directory.listFiles();
+        assertEquals("One file should be written", 1, files.length);
+        FileOutputStream out = new FileOutputStream(files[0]);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+
+        assertSameMatrix(Matrix.build(puzzle), cache.build(puzzle));
+        assertEquals("The damaged file should be an error", 1, cache.getErrors());
+        assertSameMatrix(Matrix.build(puzzle), cache.build(puzzle));
+        assertEquals("The file should be replaced", 1, cache.getHits());
+    }
+
+    /**
+     * A file of which a byte of the rows changed doesn't match its checksum.
+     */
+    public void testChecksum() throws IOException {
+        assertRejected(180, 1, false);
+    }
+
+    /**
+     * Files with a matching checksum are still checked against the puzzle. The domino file has 16 cell columns and 1
+     * piece, so its first row starts at byte 160 and the columns of that row at byte 180.
+     */
+    public void testInvalidFile() throws IOException {
+        assertRejected(16, 15, true); // number of cell columns
+        assertRejected(168, 99, true); // row of the anchor of the first row
+        assertRejected(180, 17, true); // first column of the first row
+    }
+
+    /**
+     * Solvers constructed with a cache find the same solutions.
+     */
+    public void testSolver() {
+        MatrixCache cache = new MatrixCache(directory);
+        ArrayDLX first = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"), cache);
+        ArrayDLX second = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"), cache);
+
+        assertEquals("The second solver should read the matrix", 1, cache.getHits());
+        assertEquals("Solutions differ", ArrayDLXTest.collectSolutions(first), ArrayDLXTest.collectSolutions(second));
+    }
+
+    /**
+     * Writes {@code value} at {@code offset} of the file of the 4x4 domino puzzle, and checks that the file is built
+     * again instead of read.
+     *
+     * @param fixChecksum whether the checksum is made to match the changed file
+     */
+    private void assertRejected(int offset, int value, boolean fixChecksum) throws IOException {
+        MatrixCache cache = new MatrixCache(directory);
+        cache.clear();
+        Puzzle puzzle = ArrayDLXTest.dominoPuzzle(4, 4);
+        cache.build(puzzle);
+        File file = directory.listFiles()[0];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            byte[] bytes = new byte[(int) randomAccessFile.length()];
+            randomAccessFile.readFully(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.putInt(offset, buffer.getInt(offset) == value ? value + 1 : value);
+            if (fixChecksum)
+                buffer.putLong(bytes.length - 8, MatrixCache.checksum(bytes, 28, bytes.length - 8));
+            randomAccessFile.seek(0);
+            randomAccessFile.write(bytes);
+        } finally {
+            randomAccessFile.close();
+        }
+
+        assertSameMatrix(Matrix.build(puzzle), cache.build(puzzle));
+        assertEquals("The changed file at " + offset + " should be an error", 1, cache.getErrors());
+        assertEquals("The changed file at " + offset + " should be built again", 2, cache.getMisses());
+    }
+
+    private static void assertSameMatrix(Matrix expected, Matrix result) {
+        assertEquals("Columns differ", expected.columnPositions, result.columnPositions);
+        assertTrue("Multiplicities differ", Arrays.equals(expected.multiplicity, result.multiplicity));
+        assertEquals("Number of rows differs", expected.rows.size(), result.rows.size());
+        for (int r = 0; r < expected.rows.size(); ++r) {
+            assertTrue("Row " + r + " differs", Arrays.equals(expected.rows.get(r), result.rows.get(r)));
+            assertEquals("Placement of row " + r + " differs", expected.placementOfRow.get(r), result.placementOfRow.get(r));
+        }
+        assertEquals("Pieces differ", expected.pieces, result.pieces);
+    }
+}
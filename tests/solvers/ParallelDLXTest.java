@@ -0,0 +1,58 @@
+package solvers;
+
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the implementation of ParallelDLX, by comparing it with DLX. The order of the solutions may differ.
+ *
+ * @author Robert Leenders
+ */
+public class ParallelDLXTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertSameSolutions("tests/files/SimplePuzzle.txt", 0);
+    }
+
+    public void testPentomino3x20() {
+        assertSameSolutions("tests/files/PentominoPuzzle_3x20_V-restricted.txt", 2);
+    }
+
+    public void testPentomino3x20DeepSplit() {
+        assertSameSolutions("tests/files/PentominoPuzzle_3x20_V-restricted.txt", 6);
+    }
+
+    public void testMultiplicity() {
+        ParallelDLX parallelDLX = new ParallelDLX(ArrayDLXTest.dominoPuzzle(4, 4));
+        parallelDLX.setParallelism(4);
+        parallelDLX.setSplitDepth(4);
+        parallelDLX.findAll();
+
+        assertEquals("Every domino tiling of a 4x4 box should be found once", 36, parallelDLX.getNSolutionsFound());
+    }
+
+    public void testRowCounts() {
+        ArrayDLX expected = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_6x10_V-restricted-base.txt"));
+        ParallelDLX result = new ParallelDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_6x10_V-restricted-base.txt"));
+
+        assertEquals("Number of rows differs", expected.getRowCount(), result.getRowCount());
+        assertEquals("Number of duplicate rows differs", expected.getDuplicateRowCount(), result.getDuplicateRowCount());
+    }
+
+    private void assertSameSolutions(String path, int splitDepth) {
+        DLX dlx = new DLX(ArrayDLXTest.read(path));
+        ParallelDLX parallelDLX = new ParallelDLX(ArrayDLXTest.read(path));
+        parallelDLX.setParallelism(4);
+        parallelDLX.setSplitDepth(splitDepth);
+        List<String> expected = ArrayDLXTest.collectSolutions(dlx);
+        List<String> result = ArrayDLXTest.collectSolutions(parallelDLX);
+        Collections.sort(expected);
+        Collections.sort(result);
+
+        assertEquals("Solutions differ", expected, result);
+        assertEquals("Number of solutions differs", dlx.getNSolutionsFound(), parallelDLX.getNSolutionsFound());
+        assertEquals("Number of visited nodes differs", dlx.getNNodesVisited(), parallelDLX.getNNodesVisited());
+    }
+}
@@ -0,0 +1,101 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Puzzle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests writing solutions with SolutionWriter and reading them with SolutionReader.
+ *
+ * @author Robert Leenders
+ */
+public class SolutionWriterTest extends TestCase {
+    private File file;
+
+    public void setUp() throws IOException {
+        file = File.createTempFile("solutions", ".bin");
+    }
+
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * The 281 domino tilings of a 4x6 box take several index entries; every one is read back in order and by number.
+     */
+    public void testRoundTrip() throws IOException {
+        List<String> expected = writeSolutions(ArrayDLXTest.dominoPuzzle(4, 6));
+        assertEquals("Number of solutions is wrong", 281, expected.size());
+
+        SolutionReader reader = new SolutionReader(file);
+        try {
+            assertEquals("Number of solutions differs", expected.size(), reader.size());
+            List<int[]> sequential = new ArrayList<int[]>();
+            for (int[] rows = reader.next(); rows != null; rows = reader.next())
+                sequential.add(rows);
+            assertEquals("Number of read solutions differs", expected.size(), sequential.size());
+            for (int n : new int[]{280, 0, 63, 64, 65, 200, 127, 128})
+                assertTrue("Solution " + n + " differs", Arrays.equals(sequential.get(n), reader.read(n)));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            reader.toText(ArrayDLXTest.dominoPuzzle(4, 6), new PrintStream(bytes, true));
+            String text = bytes.toString();
+            for (int n = 0; n < expected.size(); ++n)
+                assertTrue("Solution " + n + " missing", text.contains("Solution #" + (n + 1) + System.getProperty("line.separator") + expected.get(n)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void testCompact() throws IOException {
+        writeSolutions(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+
+        assertTrue("Solutions should take a few bytes: " + file.length(), file.length() < 100);
+    }
+
+    public void testOtherPuzzle() throws IOException {
+        writeSolutions(ArrayDLXTest.dominoPuzzle(4, 4));
+        SolutionReader reader = new SolutionReader(file);
+        try {
+            reader.toText(ArrayDLXTest.dominoPuzzle(4, 6), new PrintStream(new ByteArrayOutputStream()));
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * A file of which the writer wasn't closed has no index, so it can't be read.
+     */
+    public void testNotClosed() throws IOException {
+        SolutionWriter writer = new SolutionWriter(file, ArrayDLXTest.dominoPuzzle(4, 4));
+        writer.write(new int[]{3, 1, 2}, 3);
+        try {
+            new SolutionReader(file);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            writer.close();
+        }
+    }
+
+    private List<String> writeSolutions(Puzzle puzzle) throws IOException {
+        ArrayDLX arrayDLX = new ArrayDLX(puzzle);
+        SolutionWriter writer = new SolutionWriter(file, puzzle);
+        arrayDLX.addListener(writer);
+        List<String> result = ArrayDLXTest.collectSolutions(arrayDLX);
+        writer.close();
+        assertEquals("Number of written solutions differs", result.size(), writer.getCount());
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the checks of SolvabilityChecker.
+ *
+ * @author Robert Leenders
+ */
+public class SolvabilityCheckerTest extends TestCase {
+
+    public void testEmptyBox() {
+        assertEquals("Empty box should be solvable", Solvability.SOLVABLE, new SolvabilityChecker(10000).check(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt")));
+        assertEquals("3x3 box can't be tiled by dominoes", Solvability.UNSOLVABLE, new SolvabilityChecker(10000).check(ArrayDLXTest.dominoPuzzle(3, 3)));
+    }
+
+    /**
+     * A corner cell which is shut in by two dominoes fails the region check.
+     */
+    public void testDeadRegion() {
+        Puzzle puzzle = ArrayDLXTest.dominoPuzzle(4, 4);
+        Piece domino = puzzle.getBagOfPieces().getPieces().iterator().next();
+        Orientation horizontal = null, vertical = null;
+        for (Iterator<Orientation> iterator = domino.orientationIterator(); iterator.hasNext(); ) {
+            Orientation orientation = iterator.next();
+            if (orientation.getWidth() == 2)
+                horizontal = orientation;
+            else
+                vertical = orientation;
+        }
+        puzzle.addPlacement(new Placement(new Position(0, 1), horizontal, domino));
+        puzzle.addPlacement(new Placement(new Position(1, 0), vertical, domino));
+
+        assertTrue("Corner should be a dead region", SolvabilityChecker.failsNecessaryCondition(puzzle));
+        assertEquals("Box should not be solvable", Solvability.UNSOLVABLE, new SolvabilityChecker(10000).check(puzzle));
+    }
+
+    /**
+     * A 4x4 box without two opposite corners has two more cells of one colour, so seven dominoes can't fill it.
+     */
+    public void testParity() {
+        Piece domino = ArrayDLXTest.dominoPuzzle(4, 4).getBagOfPieces().getPieces().iterator().next();
+        Piece seven = new Piece(domino.getName(), domino.getColor(), 7);
+        for (Iterator<Orientation> iterator = domino.orientationIterator(); iterator.hasNext(); )
+            seven.addOrientation(iterator.next());
+        BagOfPieces bagOfPieces = new BagOfPieces();
+        bagOfPieces.add(seven);
+        ArrayList<Position> blocked = new ArrayList<Position>();
+        blocked.add(new Position(0, 0));
+        blocked.add(new Position(3, 3));
+        Puzzle puzzle = new Puzzle("Mutilated", new Box(4, 4, blocked), bagOfPieces);
+
+        assertTrue("Parity should rule the box out", SolvabilityChecker.failsNecessaryCondition(puzzle));
+    }
+
+    /**
+     * Too few pieces left fail the area check.
+     */
+    public void testArea() {
+        Puzzle puzzle = ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        Puzzle wide = new Puzzle(puzzle.getName(), new Box(4, 20), puzzle.getBagOfPieces());
+
+        assertTrue("Pieces can't fill the box", SolvabilityChecker.failsNecessaryCondition(wide));
+    }
+
+    /**
+     * A check which is made stale by a newer one isn't reported; the newest is, and is cached.
+     */
+    public void testCheckLater() throws InterruptedException {
+        SolvabilityChecker checker = new SolvabilityChecker(10000);
+        Puzzle stale = ArrayDLXTest.read("tests/files/PentominoPuzzle_6x10_V-restricted.txt");
+        Puzzle latest = ArrayDLXTest.dominoPuzzle(4, 4);
+        final List<Solvability> results = new ArrayList<Solvability>();
+        final CountDownLatch done = new CountDownLatch(1);
+        SolvabilityListener listener = new SolvabilityListener() {
+            public void solvabilityChecked(long fingerprint, Solvability solvability) {
+                synchronized (results) {
+                    results.add(solvability);
+                }
+                done.countDown();
+            }
+        };
+        checker.checkLater(stale, listener);
+        checker.checkLater(latest, listener);
+
+        assertTrue("Check should be done", done.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        synchronized (results) {
+            assertEquals("Only the latest check should be reported", 1, results.size());
+            assertEquals("Dominoes should fill a 4x4 box", Solvability.SOLVABLE, results.get(0));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package solvers;
+
+import model.Puzzle;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+
+/**
+ * Times the solvers on the given puzzle files, as a program instead of a test. For every file it prints the number of
+ * solutions, the visited nodes and the time of every way of solving. Without arguments it runs on every puzzle in
+ * tests/files, which is the head-to-head comparison of the engines.
+ *
+ * Usage: {@code java solvers.SolverBenchmark [tests/files/PentominoPuzzle_6x10_V-restricted.txt ...]}
+ *
+ * @author Robert Leenders
+ */
+public class SolverBenchmark {
+    /**
+     * Listener which looks at every solution, like the GUI does
+     */
+    static final SolverListener BOX_TO_STRING = new SolverListener() {
+        public void solutionFound(int solutionNumber, Puzzle puzzle) {
+            puzzle.boxToString();
+        }
+    };
+
+    public static void main(String[] args) {
+        if (args.length == 0)
+            args = puzzleFiles("tests/files");
+        for (String path : args) {
+            System.out.println(path);
+
+            DLX dlx = new DLX(ArrayDLXTest.read(path));
+            dlx.addListener(BOX_TO_STRING);
+            long start = System.nanoTime();
+            dlx.findAll();
+            print("DLX.findAll", dlx.getNSolutionsFound(), dlx.getNNodesVisited(), start);
+
+            ColumnChooser[] columnChoosers = {new CellFirstColumnChooser(), new RandomColumnChooser(42),
+                    new BucketColumnChooser()};
+            for (ColumnChooser columnChooser : columnChoosers) {
+                DLX chosen = new DLX(ArrayDLXTest.read(path));
+                chosen.setColumnChooser(columnChooser);
+                chosen.addListener(BOX_TO_STRING);
+                start = System.nanoTime();
+                chosen.findAll();
+                print("DLX (" + columnChooser.getClass().getSimpleName().replace("ColumnChooser", "") + ")",
+                        chosen.getNSolutionsFound(), chosen.getNNodesVisited(), start);
+            }
+
+            ArrayDLX reported = new ArrayDLX(ArrayDLXTest.read(path));
+            reported.addListener(BOX_TO_STRING);
+            start = System.nanoTime();
+            reported.findAll();
+            print("ArrayDLX.findAll", reported.getNSolutionsFound(), reported.getNNodesVisited(), start);
+
+            DancingCells dancingCells = new DancingCells(ArrayDLXTest.read(path));
+            dancingCells.addListener(BOX_TO_STRING);
+            start = System.nanoTime();
+            dancingCells.findAll();
+            print("DancingCells.findAll", dancingCells.getNSolutionsFound(), dancingCells.getNNodesVisited(), start);
+
+            ArrayDLX counted = new ArrayDLX(ArrayDLXTest.read(path));
+            start = System.nanoTime();
+            long count = counted.countAll();
+            print("ArrayDLX.countAll", count, counted.getNNodesVisited(), start);
+
+            ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.read(path));
+            TranspositionTable table = new TranspositionTable(64L << 20);
+            memoized.setTranspositionTable(table);
+            start = System.nanoTime();
+            count = memoized.countAll();
+            print("ArrayDLX.countAll (64 MB)", count, memoized.getNNodesVisited(), start);
+            System.out.println("  " + table);
+        }
+    }
+
+    /**
+     * Returns the puzzle files in a directory, sorted by name.
+     */
+    static String[] puzzleFiles(String directory) {
+        File[] files = new File(directory).listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.contains("Puzzle") && name.endsWith(".txt");
+            }
+        });
+        String[] result = new String[files.length];
+        for (int i = 0; i < files.length; ++i)
+            result[i] = files[i].getPath();
+        Arrays.sort(result);
+        return result;
+    }
+
+    static void print(String name, long solutions, long nodes, long start) {
+        System.out.printf("  %-26s %12d solutions %14d nodes %10.1f ms%n", name, solutions, nodes, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,116 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.*;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests the symmetry breaking of ArrayDLX.
+ *
+ * @author Robert Leenders
+ */
+public class SymmetryTest extends TestCase {
+
+    /**
+     * The 3x20 box has 2 tilings with the 12 pentominoes, up to its 4 symmetries.
+     */
+    public void testRectangle() {
+        ArrayDLX full = new ArrayDLX(unrestrictedPuzzle());
+        ArrayDLX canonical = new ArrayDLX(unrestrictedPuzzle());
+        canonical.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        ArrayDLX expanded = new ArrayDLX(unrestrictedPuzzle());
+        expanded.setSymmetryBreaking(SymmetryBreaking.EXPAND);
+
+        List<String> expected = ArrayDLXTest.collectSolutions(full);
+        List<String> result = ArrayDLXTest.collectSolutions(expanded);
+        canonical.findAll();
+        Collections.sort(expected);
+        Collections.sort(result);
+
+        assertEquals("Symmetry order is wrong", 4, canonical.getSymmetryOrder());
+        assertEquals("Number of solutions is wrong", 8, full.getNSolutionsFound());
+        assertEquals("Number of canonical solutions is wrong", 2, canonical.getNSolutionsFound());
+        assertEquals("Expanded solutions differ", expected, result);
+        assertTrue("Breaking the symmetry should cut the search", canonical.getNNodesVisited() < full.getNNodesVisited());
+    }
+
+    public void testParallel() {
+        ArrayDLX full = new ArrayDLX(unrestrictedPuzzle());
+        ParallelDLX expanded = new ParallelDLX(unrestrictedPuzzle());
+        expanded.setParallelism(4);
+        expanded.setSymmetryBreaking(SymmetryBreaking.EXPAND);
+
+        List<String> expected = ArrayDLXTest.collectSolutions(full);
+        List<String> result = ArrayDLXTest.collectSolutions(expanded);
+        Collections.sort(expected);
+        Collections.sort(result);
+
+        assertEquals("Symmetry order is wrong", 4, expanded.getSymmetryOrder());
+        assertEquals("Expanded solutions differ", expected, result);
+    }
+
+    /**
+     * Restricting the orientations of V already breaks the symmetry, so there is nothing left to break.
+     */
+    public void testRestrictedOrientations() {
+        ArrayDLX arrayDLX = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        arrayDLX.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        arrayDLX.findAll();
+
+        assertEquals("Symmetry order is wrong", 1, arrayDLX.getSymmetryOrder());
+        assertEquals("Number of solutions is wrong", 2, arrayDLX.getNSolutionsFound());
+    }
+
+    /**
+     * Without a piece of multiplicity one the symmetry can't be broken.
+     */
+    public void testMultiplicity() {
+        ArrayDLX arrayDLX = new ArrayDLX(ArrayDLXTest.dominoPuzzle(2, 4));
+        arrayDLX.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        arrayDLX.findAll();
+
+        assertEquals("Symmetry order is wrong", 1, arrayDLX.getSymmetryOrder());
+        assertEquals("Number of solutions is wrong", 5, arrayDLX.getNSolutionsFound());
+    }
+
+    public void testNull() {
+        ArrayDLX arrayDLX = new ArrayDLX(ArrayDLXTest.dominoPuzzle(2, 4));
+        try {
+            arrayDLX.setSymmetryBreaking(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Returns the 3x20 pentomino puzzle with all four orientations of V.
+     */
+    static Puzzle unrestrictedPuzzle() {
+        Puzzle puzzle = ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        BagOfPieces bagOfPieces = new BagOfPieces();
+        for (Piece piece : puzzle.getBagOfPieces()) {
+            if (!piece.getName().equals("V")) {
+                bagOfPieces.add(piece);
+                continue;
+            }
+            Piece v = new Piece("V", piece.getColor(), piece.getMultiplicity());
+            for (Iterator<Orientation> iterator = piece.orientationIterator(); iterator.hasNext(); ) {
+                Orientation orientation = iterator.next();
+                v.addOrientation(orientation);
+                for (int transform = 1; transform < 4; ++transform) {
+                    Orientation image = new Orientation();
+                    for (Position position : orientation)
+                        image.addPosition(transform / 2 == 1 ? 2 - position.getRow() : position.getRow(),
+                                transform % 2 == 1 ? 2 - position.getColumn() : position.getColumn());
+                    v.addOrientation(image);
+                }
+            }
+            bagOfPieces.add(v);
+        }
+        return new Puzzle(puzzle.getName(), puzzle.getBox(), bagOfPieces);
+    }
+}
@@ -0,0 +1,102 @@
+package solvers;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests counting with a transposition table.
+ *
+ * @author Robert Leenders
+ */
+public class TranspositionTableTest extends TestCase {
+
+    public void testCount() {
+        ArrayDLX plain = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        TranspositionTable table = new TranspositionTable(1 << 20);
+        memoized.setTranspositionTable(table);
+
+        assertEquals("Number of solutions differs", plain.countAll(), memoized.countAll());
+        assertTrue("Some subproblems should be found again", table.getHits() > 0);
+        assertTrue("Hits should cut the search", memoized.getNNodesVisited() < plain.getNNodesVisited());
+        assertTrue("Table is larger than its bound", table.getBytes() <= 1 << 20);
+    }
+
+    /**
+     * A table which is far too small evicts most entries, but the count stays right.
+     */
+    public void testEviction() {
+        ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        TranspositionTable table = new TranspositionTable(4 * TranspositionTable.ENTRY_BYTES);
+        memoized.setTranspositionTable(table);
+
+        assertEquals("Number of solutions is wrong", 2, memoized.countAll());
+        assertEquals("Capacity is wrong", 4, table.getCapacity());
+        assertTrue("Entries should be evicted", table.getEvictions() > 0);
+    }
+
+    /**
+     * With a multiplicity the hidden rows are part of the state, so the count must not be mixed up.
+     */
+    public void testMultiplicity() {
+        ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.dominoPuzzle(4, 4));
+        memoized.setTranspositionTable(new TranspositionTable(1 << 16));
+
+        assertEquals("Number of solutions is wrong", 36, memoized.countAll());
+    }
+
+    public void testClear() {
+        ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        TranspositionTable table = new TranspositionTable(1 << 20);
+        memoized.setTranspositionTable(table);
+        memoized.countAll();
+        table.clear();
+
+        assertEquals("Lookups should be reset", 0, table.getLookups());
+        assertEquals("Number of solutions is wrong", 2, memoized.countAll());
+    }
+
+    /**
+     * A stopped count leaves no partial counts in the table, so a later count with the same table is right.
+     */
+    public void testStoppedCount() {
+        final ArrayDLX stopped = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        TranspositionTable table = new TranspositionTable(1 << 20) {
+            @Override
+            void put(long key1, long key2, long count, long nodes) {
+                super.put(key1, key2, count, nodes);
+                if (getStores() == 100)
+                    stopped.stop();
+            }
+        };
+        stopped.setTranspositionTable(table);
+        stopped.countAll();
+        ArrayDLX memoized = new ArrayDLX(ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"));
+        memoized.setTranspositionTable(table);
+
+        assertEquals("Number of solutions is wrong", 2, memoized.countAll());
+    }
+
+    /**
+     * Searches with and without symmetry breaking count different subproblems with the same active columns.
+     */
+    public void testSymmetryBreaking() {
+        TranspositionTable table = new TranspositionTable(1 << 20);
+        ArrayDLX full = new ArrayDLX(SymmetryTest.unrestrictedPuzzle());
+        full.setTranspositionTable(table);
+        ArrayDLX canonical = new ArrayDLX(SymmetryTest.unrestrictedPuzzle());
+        canonical.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        canonical.setTranspositionTable(table);
+
+        assertEquals("Number of solutions is wrong", 8, full.countAll());
+        assertEquals("Number of canonical solutions is wrong", 2, canonical.countAll());
+    }
+
+    public void testTooSmall() {
+        try {
+            new TranspositionTable(TranspositionTable.ENTRY_BYTES);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package solvers;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the implementation of TreeSizeEstimator, by comparing its estimates with the real search.
+ *
+ * @author Robert Leenders
+ */
+public class TreeSizeEstimatorTest extends TestCase {
+
+    public void testSimplePuzzle() {
+        assertWithinInterval("tests/files/SimplePuzzle.txt", true);
+    }
+
+    /**
+     * Only 2 of the leaves are solutions, so most sets of probes miss them all and only the nodes are checked.
+     */
+    public void testPentomino3x20() {
+        assertWithinInterval("tests/files/PentominoPuzzle_3x20_V-restricted.txt", false);
+    }
+
+    /**
+     * The probes undo their walks, so later probes see the same tree.
+     */
+    public void testRepeatable() {
+        TreeSizeEstimator estimator = new TreeSizeEstimator(ArrayDLXTest.dominoPuzzle(2, 4), 1);
+        TreeSizeEstimate first = estimator.estimate(1000);
+        TreeSizeEstimate second = estimator.estimate(1000);
+
+        assertEquals("Number of solutions is wrong", 5.0, first.getSolutions(), 1.0);
+        assertEquals("Number of solutions is wrong", 5.0, second.getSolutions(), 1.0);
+    }
+
+    /**
+     * With symmetry breaking the estimate is of the restricted search, which is a quarter of the full one.
+     */
+    public void testSymmetryBreaking() {
+        TreeSizeEstimator estimator = new TreeSizeEstimator(SymmetryTest.unrestrictedPuzzle(), 42);
+        estimator.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        TreeSizeEstimate canonical = estimator.estimate(20000);
+        TreeSizeEstimate full = new TreeSizeEstimator(SymmetryTest.unrestrictedPuzzle(), 42).estimate(20000);
+        ArrayDLX arrayDLX = new ArrayDLX(SymmetryTest.unrestrictedPuzzle());
+        arrayDLX.setSymmetryBreaking(SymmetryBreaking.CANONICAL);
+        arrayDLX.countAll();
+
+        assertTrue("Visited nodes should be within " + canonical, canonical.getNodesLow() <= arrayDLX.getNNodesVisited()
+                                                                   && arrayDLX.getNNodesVisited() <= canonical.getNodesHigh());
+        assertTrue("The restricted search should be smaller", canonical.getNodesHigh() < full.getNodesLow());
+    }
+
+    public void testIllegalProbes() {
+        try {
+            new TreeSizeEstimator(ArrayDLXTest.dominoPuzzle(2, 4)).estimate(1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void assertWithinInterval(String path, boolean checkSolutions) {
+        ArrayDLX arrayDLX = new ArrayDLX(ArrayDLXTest.read(path));
+        long solutions = arrayDLX.countAll();
+        TreeSizeEstimate estimate = new TreeSizeEstimator(ArrayDLXTest.read(path), 42).estimate(20000);
+
+        assertTrue("Visited nodes should be within " + estimate, estimate.getNodesLow() <= arrayDLX.getNNodesVisited()
+                                                                   && arrayDLX.getNNodesVisited() <= estimate.getNodesHigh());
+        if (checkSolutions)
+            assertTrue("Solutions should be within " + estimate, estimate.getSolutionsLow() <= solutions
+                                                                 && solutions <= estimate.getSolutionsHigh());
+        assertTrue("The time should be estimated", estimate.getSeconds() > 0);
+    }
+}
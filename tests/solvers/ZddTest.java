@@ -0,0 +1,122 @@
+package solvers;
+
+import junit.framework.TestCase;
+import model.Placement;
+import model.Puzzle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Tests the ZDD of the solutions built by ArrayDLX.
+ *
+ * @author Robert Leenders
+ */
+public class ZddTest extends TestCase {
+
+    public void testCount() {
+        assertEquals("Number of solutions is wrong", 2, zdd("tests/files/PentominoPuzzle_3x20_V-restricted.txt").count());
+        assertEquals("Number of solutions is wrong", 36, new ArrayDLX(ArrayDLXTest.dominoPuzzle(4, 4)).buildZdd().count());
+        assertEquals("Number of solutions is wrong", 5, new ArrayDLX(ArrayDLXTest.dominoPuzzle(2, 4)).buildZdd().count());
+    }
+
+    /**
+     * Enumerating the diagram gives the solutions of the search, in the same order.
+     */
+    public void testIterator() {
+        for (Puzzle puzzle : new Puzzle[]{ArrayDLXTest.read("tests/files/SimplePuzzle.txt"),
+                ArrayDLXTest.read("tests/files/PentominoPuzzle_3x20_V-restricted.txt"), ArrayDLXTest.dominoPuzzle(4, 4)}) {
+            List<String> expected = ArrayDLXTest.collectSolutions(new ArrayDLX(puzzle));
+            ArrayDLX arrayDLX = new ArrayDLX(puzzle);
+            List<String> result = new ArrayList<String>();
+            for (int[] rows : arrayDLX.buildZdd())
+                result.add(boxToString(puzzle, arrayDLX.getPlacements(rows)));
+
+            assertEquals("Enumerated solutions differ", expected, result);
+        }
+    }
+
+    /**
+     * Every one of the 36 domino tilings of a 4x4 box should be sampled about equally often.
+     */
+    public void testSample() {
+        Zdd zdd = new ArrayDLX(ArrayDLXTest.dominoPuzzle(4, 4)).buildZdd();
+        Map<List<Integer>, Integer> frequency = new HashMap<List<Integer>, Integer>();
+        for (int[] rows : zdd)
+            frequency.put(rowList(rows), 0);
+        Random random = new Random(42);
+        int samples = 36000;
+        for (int i = 0; i < samples; ++i) {
+            List<Integer> rows = rowList(zdd.sample(random));
+            assertTrue("Sample is not a solution", frequency.containsKey(rows));
+            frequency.put(rows, frequency.get(rows) + 1);
+        }
+        for (int count : frequency.values())
+            assertTrue("Sampling is not uniform: " + count, count > 800 && count < 1200);
+    }
+
+    public void testSerialization() throws IOException {
+        Zdd zdd = zdd("tests/files/PentominoPuzzle_3x20_V-restricted.txt");
+        File file = File.createTempFile("solutions", ".zdd");
+        try {
+            zdd.write(file);
+            Zdd read = Zdd.read(file);
+
+            assertEquals("Size differs", zdd.size(), read.size());
+            assertEquals("Number of solutions differs", zdd.count(), read.count());
+            Iterator<int[]> iterator = read.iterator();
+            for (int[] rows : zdd)
+                assertTrue("Solutions differ", Arrays.equals(rows, iterator.next()));
+            assertFalse("Too many solutions", iterator.hasNext());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testNotAZdd() throws IOException {
+        File file = File.createTempFile("solutions", ".zdd");
+        try {
+            try {
+                Zdd.read(file);
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * A puzzle without solutions has the empty diagram.
+     */
+    public void testNoSolutions() {
+        Zdd zdd = new ArrayDLX(ArrayDLXTest.dominoPuzzle(3, 3)).buildZdd();
+
+        assertEquals("Number of solutions is wrong", 0, zdd.count());
+        assertNull("There is nothing to sample", zdd.sample(new Random()));
+        assertFalse("There is nothing to enumerate", zdd.iterator().hasNext());
+    }
+
+    private static Zdd zdd(String path) {
+        return new ArrayDLX(ArrayDLXTest.read(path)).buildZdd();
+    }
+
+    private static List<Integer> rowList(int[] rows) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int row : rows)
+            result.add(row);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static String boxToString(Puzzle puzzle, Placement[] placements) {
+        for (Placement placement : placements)
+            puzzle.addPlacement(placement);
+        String result = puzzle.boxToString();
+        for (Placement placement : placements)
+            puzzle.removePlacement(placement);
+        return result;
+    }
+}
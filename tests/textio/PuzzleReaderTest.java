@@ -4,6 +4,7 @@ import junit.framework.TestCase;
 import model.*;
 
 import java.awt.*;
+import java.io.File;
 import java.io.FileNotFoundException;
 
 /**
@@ -75,4 +76,27 @@ public class PuzzleReaderTest extends TestCase {
 
     }
 
-}
+    public void testIsPuzzleFile() {
+        assertTrue("Puzzle file not recognised", PuzzleReader.isPuzzleFile(new File("tests/files/SimplePuzzle.txt")));
+        assertFalse("Box file is not a puzzle file", PuzzleReader.isPuzzleFile(new File("tests/files/SimpleBox.txt")));
+        assertFalse("Pieces file is not a puzzle file", PuzzleReader.isPuzzleFile(new File("tests/files/SimplePieces.txt")));
+        assertFalse("Directory is not a puzzle file", PuzzleReader.isPuzzleFile(new File("tests/files")));
+    }
+
+    /**
+     * A piece file with one base shape per piece gives the same pieces as the file with every orientation.
+     */
+    public void testBaseShapes() throws FileNotFoundException {
+        Puzzle expected = PuzzleReader.read("tests/files/PentominoPuzzle_6x10_V-restricted.txt");
+        Puzzle result = PuzzleReader.read("tests/files/PentominoPuzzle_6x10_V-restricted-base.txt");
+
+        assertEquals("Pieces not read correctly", expected.getBagOfPieces(), result.getBagOfPieces());
+        for (Piece piece : result.getBagOfPieces()) {
+            if (piece.getName().equals("V"))
+                assertEquals("V is restricted", 1, piece.getOrientationCount());
+            if (piece.getName().equals("X"))
+                assertEquals("X has one orientation", 1, piece.getOrientationCount());
+        }
+    }
+
+}